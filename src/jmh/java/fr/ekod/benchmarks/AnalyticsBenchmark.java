@@ -0,0 +1,80 @@
+package fr.ekod.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.ekod.Money;
+import fr.ekod.Order;
+import fr.ekod.ProductCatalog;
+import fr.ekod.ShoppingCart;
+import fr.ekod.analytics.SalesAggregator;
+import fr.ekod.exceptions.OutOfStockException;
+
+// Ingestion concurrente de commandes finalisées pendant que le tableau de bord interroge les agrégats
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AnalyticsBenchmark {
+    private static final int ORDERS = 1_000;
+
+    private SalesAggregator aggregator;
+    private Order[] orders;
+
+    @Setup(Level.Trial)
+    public void setUp() throws OutOfStockException {
+        ProductCatalog catalog = new ProductCatalog();
+        for (int i = 0; i < 100; i++) {
+            catalog.register("Produit " + i, 1 + i * 0.37, Integer.MAX_VALUE / 2);
+        }
+        aggregator = new SalesAggregator();
+        orders = new Order[ORDERS];
+        for (int i = 0; i < ORDERS; i++) {
+            ShoppingCart cart = new ShoppingCart();
+            orders[i] = new Order(cart, Money.of(4.90));
+            for (int j = 0; j < 5; j++) {
+                cart.addProduct(catalog.get((i + j * 7) % 100), 1 + j % 3);
+            }
+            orders[i].setDiscount(i % 20);
+        }
+    }
+
+    private void record() {
+        aggregator.record(orders[ThreadLocalRandom.current().nextInt(ORDERS)]);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void record1Thread() {
+        record();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void record4Threads() {
+        record();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Money dashboard() {
+        aggregator.getAverageDiscount();
+        aggregator.getUnitsSold(42);
+        return aggregator.getRecentRevenue(60);
+    }
+}
@@ -0,0 +1,95 @@
+package fr.ekod.benchmarks;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.ekod.Order;
+import fr.ekod.Product;
+import fr.ekod.ShoppingCart;
+import fr.ekod.events.CartEventBus;
+import fr.ekod.exceptions.OutOfStockException;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CartBenchmark {
+
+    // Ajout puis retrait d'une unité sur un panier de taille fixe
+    @Benchmark
+    public int addRemove(CartState state) throws OutOfStockException {
+        state.cart.addProduct(state.extra);
+        state.cart.removeProduct(state.extra);
+        return state.cart.getNumberOfItems();
+    }
+
+    // Même opération avec un bus asynchrone et deux abonnés, sur un panier vide : indépendante de la
+    // taille, elle n'est mesurée qu'une fois ; l'écart avec addRemove (10 lignes) est le coût de publish()
+    @Benchmark
+    public int addRemoveWithEventBus(EventBusState bus) throws OutOfStockException {
+        bus.cart.addProduct(bus.extra);
+        bus.cart.removeProduct(bus.extra);
+        return bus.cart.getNumberOfItems();
+    }
+
+    @State(Scope.Thread)
+    public static class EventBusState {
+        public ExecutorService executor;
+        public ShoppingCart cart;
+        public Product extra;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            extra = new Product("Supplément", 4.99, Integer.MAX_VALUE / 2);
+            executor = Executors.newSingleThreadExecutor();
+            CartEventBus bus = new CartEventBus(executor);
+            LongAdder analytics = new LongAdder();
+            bus.subscribe(changes -> analytics.add(changes.size()));
+            bus.subscribe(changes -> changes.forEach(change -> change.getQuantityChanges().size()));
+            cart = new ShoppingCart();
+            cart.setEventBus(bus);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            executor.shutdown();
+        }
+    }
+
+    @Benchmark
+    public double getTotalPrice(CartState state) {
+        return state.cart.getTotalPrice();
+    }
+
+    // Construction complète d'un panier associé à une commande : coût total de n ajouts
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public double buildCart(CartState state) throws OutOfStockException {
+        ShoppingCart cart = new ShoppingCart();
+        Order order = new Order(cart, 4.90);
+        for (Product product : state.products) {
+            cart.addProduct(product);
+        }
+        double total = order.getTotalPrice();
+        for (Product product : state.products) {
+            cart.removeProduct(product);
+        }
+        return total;
+    }
+}
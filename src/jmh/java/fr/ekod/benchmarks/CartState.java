@@ -0,0 +1,38 @@
+package fr.ekod.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import fr.ekod.Order;
+import fr.ekod.Product;
+import fr.ekod.ShoppingCart;
+import fr.ekod.exceptions.OutOfStockException;
+
+// Panier pré-rempli de "lines" produits distincts, associé à une commande
+@State(Scope.Thread)
+public class CartState {
+    @Param({"10", "1000", "100000"})
+    public int lines;
+
+    public Product[] products;
+    public Product extra;
+    public ShoppingCart cart;
+    public Order order;
+
+    @Setup(Level.Trial)
+    public void setUp() throws OutOfStockException {
+        products = new Product[lines];
+        for (int i = 0; i < lines; i++) {
+            products[i] = new Product("Produit " + i, 1 + (i % 100) * 0.37, Integer.MAX_VALUE / 2);
+        }
+        extra = new Product("Supplément", 4.99, Integer.MAX_VALUE / 2);
+        cart = new ShoppingCart();
+        order = new Order(cart, 4.90);
+        for (Product product : products) {
+            cart.addProduct(product, 2);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package fr.ekod.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Currency;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.ekod.CartLine;
+import fr.ekod.Order;
+import fr.ekod.ProductCatalog;
+import fr.ekod.ShoppingCart;
+import fr.ekod.codec.OrderCodec;
+import fr.ekod.codec.OrderVisitor;
+import fr.ekod.exceptions.OutOfStockException;
+
+// Codec binaire comparé à un JSON construit à la main à partir des getters
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CodecBenchmark {
+    @Param({"10", "1000"})
+    public int lines;
+
+    private Order order;
+    private ByteBuffer binary;
+    private byte[] json;
+    private final StringBuilder text = new StringBuilder();
+    private final Checksum checksum = new Checksum();
+
+    @Setup(Level.Trial)
+    public void setUp() throws OutOfStockException {
+        ProductCatalog catalog = new ProductCatalog();
+        ShoppingCart cart = new ShoppingCart();
+        order = new Order(cart, 4.90);
+        for (int i = 0; i < lines; i++) {
+            cart.addProduct(catalog.register("Produit " + i, 1 + (i % 100) * 0.37, Integer.MAX_VALUE / 2), 2);
+        }
+        order.setDiscount(12.5);
+
+        binary = ByteBuffer.allocate(OrderCodec.encodedSize(order));
+        OrderCodec.encode(order, binary);
+        json = toJson(order, text).toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public ByteBuffer encodeBinary() {
+        binary.clear();
+        OrderCodec.encode(order, binary);
+        return binary;
+    }
+
+    @Benchmark
+    public byte[] encodeJson() {
+        text.setLength(0);
+        return toJson(order, text).toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public long decodeBinary() {
+        binary.rewind();
+        checksum.value = 0;
+        OrderCodec.decode(binary, checksum);
+        return checksum.value;
+    }
+
+    @Benchmark
+    public long decodeJson() {
+        checksum.value = 0;
+        fromJson(new String(json, StandardCharsets.UTF_8), checksum);
+        return checksum.value;
+    }
+
+    // Somme des champs décodés, pour que le décodage ne soit pas éliminé
+    private static final class Checksum implements OrderVisitor {
+        long value;
+
+        @Override
+        public void order(long orderId, long cartId, Currency currency, long deliveryFee, long discountBasisPoints) {
+            value += orderId + cartId + deliveryFee + discountBasisPoints + currency.getNumericCode();
+        }
+
+        @Override
+        public void line(int sku, int quantity, long unitPrice) {
+            value += sku + quantity + unitPrice;
+        }
+    }
+
+    static StringBuilder toJson(Order order, StringBuilder out) {
+        ShoppingCart cart = order.getShoppingCart();
+        out.append("{\"id\":").append(order.getId())
+                .append(",\"cartId\":").append(cart.getId())
+                .append(",\"currency\":\"").append(cart.getCurrency().getCurrencyCode())
+                .append("\",\"discount\":").append(order.getDiscountBasisPoints())
+                .append(",\"deliveryFee\":").append(order.getDeliveryFeeAmount().getMinorUnits())
+                .append(",\"lines\":[");
+        boolean first = true;
+        for (CartLine line : cart.getLines()) {
+            if (!first) {
+                out.append(',');
+            }
+            first = false;
+            out.append("{\"sku\":").append(line.getProduct().getSku())
+                    .append(",\"quantity\":").append(line.getQuantity())
+                    .append(",\"price\":").append(line.getProduct().getPriceAmount().getMinorUnits())
+                    .append('}');
+        }
+        return out.append("]}");
+    }
+
+    // Lecture du JSON ci-dessus, dans l'ordre fixe des champs
+    static void fromJson(String json, OrderVisitor visitor) {
+        int[] pos = {0};
+        long id = number(json, "\"id\":", pos);
+        long cartId = number(json, "\"cartId\":", pos);
+        int start = json.indexOf("\"currency\":\"", pos[0]) + 12;
+        Currency currency = Currency.getInstance(json.substring(start, json.indexOf('"', start)));
+        pos[0] = start;
+        long discount = number(json, "\"discount\":", pos);
+        long fee = number(json, "\"deliveryFee\":", pos);
+        visitor.order(id, cartId, currency, fee, discount);
+        while (json.indexOf("\"sku\":", pos[0]) >= 0) {
+            int sku = (int) number(json, "\"sku\":", pos);
+            int quantity = (int) number(json, "\"quantity\":", pos);
+            visitor.line(sku, quantity, number(json, "\"price\":", pos));
+        }
+    }
+
+    private static long number(String json, String key, int[] pos) {
+        int i = json.indexOf(key, pos[0]) + key.length();
+        int end = i;
+        while (end < json.length() && (json.charAt(end) == '-' || Character.isDigit(json.charAt(end)))) {
+            end++;
+        }
+        pos[0] = end;
+        return Long.parseLong(json, i, end, 10);
+    }
+}
@@ -0,0 +1,101 @@
+package fr.ekod.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.ekod.Money;
+import fr.ekod.Product;
+import fr.ekod.ShoppingCart;
+import fr.ekod.exceptions.InvalidDiscountCodeException;
+import fr.ekod.exceptions.OutOfStockException;
+import fr.ekod.pricing.DiscountCodeRegistry;
+
+// Plusieurs paniers (un par thread) réservant le même produit, comme lors d'une vente flash
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContentionBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class SharedProduct {
+        public Product product;
+
+        @Setup
+        public void setUp() {
+            product = new Product("Vente flash", 19.99, Integer.MAX_VALUE / 2);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadCart {
+        public ShoppingCart cart;
+
+        @Setup
+        public void setUp() {
+            cart = new ShoppingCart();
+        }
+    }
+
+    // Un même code promo utilisé par tous les paniers à la fois
+    @State(Scope.Benchmark)
+    public static class SharedCode {
+        public DiscountCodeRegistry registry;
+
+        @Setup
+        public void setUp() {
+            registry = new DiscountCodeRegistry();
+            registry.register("VIRAL", 10, Money.zero(Money.EUR), Integer.MAX_VALUE, null);
+        }
+    }
+
+    private static int addRemove(SharedProduct shared, ThreadCart local) throws OutOfStockException {
+        local.cart.addProduct(shared.product);
+        local.cart.removeProduct(shared.product);
+        return local.cart.getNumberOfItems();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int addRemove1Thread(SharedProduct shared, ThreadCart local) throws OutOfStockException {
+        return addRemove(shared, local);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int addRemove4Threads(SharedProduct shared, ThreadCart local) throws OutOfStockException {
+        return addRemove(shared, local);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public int addRemove16Threads(SharedProduct shared, ThreadCart local) throws OutOfStockException {
+        return addRemove(shared, local);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void redeemRelease1Thread(SharedCode shared) throws InvalidDiscountCodeException {
+        shared.registry.redeem("VIRAL");
+        shared.registry.release("VIRAL");
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void redeemRelease16Threads(SharedCode shared) throws InvalidDiscountCodeException {
+        shared.registry.redeem("VIRAL");
+        shared.registry.release("VIRAL");
+    }
+}
@@ -0,0 +1,42 @@
+package fr.ekod.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+
+import fr.ekod.Invoice;
+import fr.ekod.cache.InvoiceCache;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InvoiceBenchmark {
+
+    @Benchmark
+    public String generateInvoice(CartState state) {
+        return new Invoice(state.order).generateInvoice();
+    }
+
+    // Téléchargements répétés d'une commande inchangée : seule la vérification de version est payée
+    @Benchmark
+    public ByteBuffer cachedInvoice(CartState state, CacheState cache) {
+        return cache.cache.getBuffer(state.order);
+    }
+
+    @State(Scope.Benchmark)
+    public static class CacheState {
+        public final InvoiceCache cache = new InvoiceCache(64L * 1024 * 1024);
+    }
+}
@@ -0,0 +1,44 @@
+package fr.ekod.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.ekod.exceptions.OutOfStockException;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderBenchmark {
+
+    @Benchmark
+    public double setDiscount(CartState state) {
+        state.order.setDiscount(15.0);
+        state.order.setDiscount(0.0);
+        return state.order.getTotalPrice();
+    }
+
+    @Benchmark
+    public double calculateTotal(CartState state) {
+        state.order.calculateTotal();
+        return state.order.getTotalPrice();
+    }
+
+    // Modifications en série du panier : le total n'est recalculé qu'une fois, à la lecture
+    @Benchmark
+    public double bulkEditThenTotal(CartState state) throws OutOfStockException {
+        for (int i = 0; i < 10; i++) {
+            state.cart.addProduct(state.extra);
+        }
+        state.cart.removeProduct(state.extra, 10);
+        return state.order.getTotalPrice();
+    }
+}
@@ -0,0 +1,74 @@
+package fr.ekod.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.ekod.Money;
+import fr.ekod.ProductCatalog;
+import fr.ekod.ShoppingCart;
+import fr.ekod.exceptions.OutOfStockException;
+import fr.ekod.pricing.PriceQuote;
+import fr.ekod.pricing.PricingEngine;
+
+// Évaluation d'un panier de "lines" lignes face à "promotions" règles produit actives
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PricingBenchmark {
+    @Param({"1000"})
+    public int lines;
+
+    @Param({"100", "10000"})
+    public int promotions;
+
+    private PricingEngine engine;
+    private ShoppingCart cart;
+
+    @Setup(Level.Trial)
+    public void setUp() throws OutOfStockException {
+        ProductCatalog catalog = new ProductCatalog();
+        int skus = Math.max(lines, promotions / 2);
+        for (int i = 0; i < skus; i++) {
+            catalog.register("Produit " + i, 1 + (i % 100) * 0.37, Integer.MAX_VALUE / 2);
+        }
+        // Deux règles par SKU : une promotion et un prix dégressif
+        PricingEngine.Builder builder = PricingEngine.builder(catalog)
+                .cartDiscount(Money.of(100.0), 5)
+                .cartDiscount(Money.of(1000.0), 10)
+                .discountCode("PROMO10", 10);
+        for (int i = 0; i < promotions; i++) {
+            int sku = (i / 2) % skus;
+            if (i % 2 == 0) {
+                builder.productDiscount(sku, 5);
+            } else {
+                builder.productDiscount(sku, 3, 15);
+            }
+        }
+        engine = builder.build();
+
+        cart = new ShoppingCart();
+        for (int i = 0; i < lines; i++) {
+            cart.addProduct(catalog.get(i * (skus / lines)), 1 + i % 4);
+        }
+    }
+
+    @Benchmark
+    public PriceQuote quote() {
+        return engine.quote(cart, "PROMO10");
+    }
+}
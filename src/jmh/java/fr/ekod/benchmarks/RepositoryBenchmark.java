@@ -0,0 +1,92 @@
+package fr.ekod.benchmarks;
+
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.ekod.Money;
+import fr.ekod.Order;
+import fr.ekod.ProductCatalog;
+import fr.ekod.ShoppingCart;
+import fr.ekod.exceptions.OutOfStockException;
+import fr.ekod.repository.OrderRepository;
+
+// Référentiel partagé de 100 000 commandes : écritures et lectures concurrentes, parcours parallèles
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RepositoryBenchmark {
+    private static final int ORDERS = 100_000;
+
+    private OrderRepository repository;
+    private Order[] orders;
+
+    @Setup(Level.Trial)
+    public void setUp() throws OutOfStockException {
+        ProductCatalog catalog = new ProductCatalog();
+        for (int i = 0; i < 100; i++) {
+            catalog.register("Produit " + i, 1 + i * 0.37, Integer.MAX_VALUE / 2);
+        }
+        repository = new OrderRepository();
+        orders = new Order[ORDERS];
+        Instant start = Instant.parse("2026-01-01T00:00:00Z");
+        for (int i = 0; i < ORDERS; i++) {
+            ShoppingCart cart = new ShoppingCart();
+            orders[i] = new Order(i + 1, cart, Money.of(4.90), start.plusSeconds(i * 60L));
+            cart.addProduct(catalog.get(i % 100), 1 + i % 3);
+            repository.save(orders[i]);
+        }
+    }
+
+    private Order saveAndFind() {
+        Order order = orders[ThreadLocalRandom.current().nextInt(ORDERS)];
+        repository.save(order);
+        return repository.findById(orders[ThreadLocalRandom.current().nextInt(ORDERS)].getId());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Order saveAndFind1Thread() {
+        return saveAndFind();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Order saveAndFind4Threads() {
+        return saveAndFind();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Order saveAndFind16Threads() {
+        return saveAndFind();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Money revenueOfJanuary() {
+        return repository.revenueBetween(Instant.parse("2026-01-01T00:00:00Z"), Instant.parse("2026-02-01T00:00:00Z"));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int ordersWithSku() {
+        return repository.findBySku(42).size();
+    }
+}
@@ -0,0 +1,64 @@
+package fr.ekod;
+
+import java.io.IOException;
+
+// Formatage à virgule fixe écrit à la main, sans Formatter ni allocation :
+// produit le même texte que String.format("%.2f", ...) pour les montants en unités mineures.
+final class AmountFormat {
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private AmountFormat() {
+    }
+
+    // Écrit un montant exprimé en unités mineures (scale = 10^décimales de la devise) avec deux décimales
+    static void appendAmount(Appendable out, long minorUnits, long scale) throws IOException {
+        appendHundredths(out, toHundredths(minorUnits, scale));
+    }
+
+    // Écrit une valeur exprimée en centièmes, par exemple des points de base pour un pourcentage
+    static void appendHundredths(Appendable out, long hundredths) throws IOException {
+        if (hundredths < 0) {
+            out.append('-');
+            hundredths = -hundredths;
+        }
+        appendDigits(out, hundredths / 100);
+        long cents = hundredths % 100;
+        out.append('.');
+        out.append((char) ('0' + cents / 10));
+        out.append((char) ('0' + cents % 10));
+    }
+
+    private static void appendDigits(Appendable out, long value) throws IOException {
+        int power = 0;
+        while (power + 1 < POWERS_OF_TEN.length && POWERS_OF_TEN[power + 1] <= value) {
+            power++;
+        }
+        for (; power >= 0; power--) {
+            long digit = value / POWERS_OF_TEN[power];
+            out.append((char) ('0' + digit));
+            value -= digit * POWERS_OF_TEN[power];
+        }
+    }
+
+    // Ramène un montant à deux décimales, arrondi au plus proche (demi vers l'infini) comme %.2f
+    private static long toHundredths(long minorUnits, long scale) {
+        if (scale == 100) {
+            return minorUnits;
+        }
+        if (scale < 100) {
+            return Math.multiplyExact(minorUnits, 100 / scale);
+        }
+        long divisor = scale / 100;
+        long half = divisor / 2;
+        return minorUnits >= 0
+                ? (minorUnits + half) / divisor
+                : -((-minorUnits + half) / divisor);
+    }
+}
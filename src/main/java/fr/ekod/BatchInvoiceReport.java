@@ -0,0 +1,54 @@
+package fr.ekod;
+
+import java.util.concurrent.TimeUnit;
+
+// Bilan d'un lot de factures : volume, débit et latence par facture
+public class BatchInvoiceReport {
+    private final long invoiceCount;
+    private final long bytesWritten;
+    private final long elapsedNanos;
+    private final long totalLatencyNanos;
+    private final long maxLatencyNanos;
+
+    BatchInvoiceReport(long invoiceCount, long bytesWritten, long elapsedNanos,
+                       long totalLatencyNanos, long maxLatencyNanos) {
+        this.invoiceCount = invoiceCount;
+        this.bytesWritten = bytesWritten;
+        this.elapsedNanos = elapsedNanos;
+        this.totalLatencyNanos = totalLatencyNanos;
+        this.maxLatencyNanos = maxLatencyNanos;
+    }
+
+    public long getInvoiceCount() {
+        return invoiceCount;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    // Factures produites par seconde sur la durée totale du lot
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0.0 : invoiceCount * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    public long getAverageLatencyNanos() {
+        return invoiceCount == 0 ? 0 : totalLatencyNanos / invoiceCount;
+    }
+
+    public long getMaxLatencyNanos() {
+        return maxLatencyNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d factures, %d octets en %d ms (%.0f factures/s, latence moyenne %d µs, max %d µs)",
+                invoiceCount, bytesWritten, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), getThroughput(),
+                TimeUnit.NANOSECONDS.toMicros(getAverageLatencyNanos()),
+                TimeUnit.NANOSECONDS.toMicros(maxLatencyNanos));
+    }
+}
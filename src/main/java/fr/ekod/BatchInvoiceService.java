@@ -0,0 +1,122 @@
+package fr.ekod;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+// Génération de factures en masse : rendu parallèle sur un pool borné, un fichier par facture.
+// Le nombre de factures en cours est limité, ce qui borne la mémoire quel que soit le volume du lot.
+public class BatchInvoiceService {
+    private final int parallelism;
+    private final int maxPendingInvoices;
+    // Un buffer d'encodage réutilisé par thread de rendu
+    private final ThreadLocal<StreamingAppendable> buffers =
+            ThreadLocal.withInitial(() -> new StreamingAppendable(null));
+
+    public BatchInvoiceService() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public BatchInvoiceService(int parallelism) {
+        this(parallelism, parallelism * 4);
+    }
+
+    public BatchInvoiceService(int parallelism, int maxPendingInvoices) {
+        if (parallelism <= 0 || maxPendingInvoices <= 0) {
+            throw new IllegalArgumentException("Le parallélisme et la file d'attente doivent être strictement positifs");
+        }
+        this.parallelism = parallelism;
+        this.maxPendingInvoices = maxPendingInvoices;
+    }
+
+    public BatchInvoiceReport generateAll(Collection<Order> orders, Path directory) throws IOException {
+        return generateAll(orders.stream(), directory);
+    }
+
+    // Écrit une facture par commande dans le répertoire (facture-00000001.txt, ...), dans l'ordre du flux
+    public BatchInvoiceReport generateAll(Stream<Order> orders, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        Semaphore pending = new Semaphore(maxPendingInvoices);
+        LongAdder invoiceCount = new LongAdder();
+        LongAdder bytesWritten = new LongAdder();
+        LongAdder totalLatency = new LongAdder();
+        LongAccumulator maxLatency = new LongAccumulator(Math::max, 0);
+        // Première erreur d'un thread de rendu (IOException ou RuntimeException), relancée par generateAll
+        AtomicReference<Exception> failure = new AtomicReference<>();
+
+        long start = System.nanoTime();
+        try {
+            Iterator<Order> iterator = orders.iterator();
+            long sequence = 0;
+            while (iterator.hasNext() && failure.get() == null) {
+                Order order = iterator.next();
+                Path file = directory.resolve(String.format("facture-%08d.txt", ++sequence));
+                pending.acquire();
+                executor.execute(() -> {
+                    try {
+                        long begin = System.nanoTime();
+                        bytesWritten.add(write(order, file));
+                        long latency = System.nanoTime() - begin;
+                        invoiceCount.increment();
+                        totalLatency.add(latency);
+                        maxLatency.accumulate(latency);
+                    } catch (IOException | RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        pending.release();
+                    }
+                });
+            }
+            // Attendre la fin de toutes les factures en cours
+            pending.acquire(maxPendingInvoices);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Génération des factures interrompue", e);
+        } finally {
+            executor.shutdownNow();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        Exception error = failure.get();
+        if (error instanceof IOException) {
+            throw (IOException) error;
+        }
+        if (error != null) {
+            throw (RuntimeException) error;
+        }
+        return new BatchInvoiceReport(invoiceCount.sum(), bytesWritten.sum(), elapsed,
+                totalLatency.sum(), maxLatency.get());
+    }
+
+    // Une facture incomplète n'est pas laissée sur le disque
+    private long write(Order order, Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        try (channel) {
+            StreamingAppendable out = buffers.get();
+            out.reset(channel);
+            new Invoice(order).writeTo(out);
+            out.flush();
+            return channel.position();
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
+}
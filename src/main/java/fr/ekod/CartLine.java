@@ -0,0 +1,36 @@
+package fr.ekod;
+
+// Ligne de panier : un produit et la quantité commandée
+public class CartLine {
+    private final Product product;
+    private int quantity;
+
+    CartLine(Product product, int quantity) {
+        this.product = product;
+        this.quantity = quantity;
+    }
+
+    public Product getProduct() {
+        return product;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public double getTotalPrice() {
+        return getTotalAmount().toDouble();
+    }
+
+    public Money getTotalAmount() {
+        return product.getPriceAmount().times(quantity);
+    }
+
+    void increase(int amount) {
+        quantity += amount;
+    }
+
+    void decrease(int amount) {
+        quantity -= amount;
+    }
+}
@@ -1,5 +1,15 @@
 package fr.ekod;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+import fr.ekod.metrics.CheckoutMetrics;
+
 public class Invoice {
     private Order order;
 
@@ -8,34 +18,98 @@ public class Invoice {
     }
 
     public String generateInvoice() {
+        long start = System.nanoTime();
         StringBuilder invoice = new StringBuilder();
-        invoice.append("=== FACTURE ===\n\n");
-        
+        try {
+            writeTo(invoice);
+        } catch (IOException e) {
+            // Impossible avec un StringBuilder
+            throw new UncheckedIOException(e);
+        }
+        String text = invoice.toString();
+        CheckoutMetrics.get().getGenerateInvoiceLatency().record(System.nanoTime() - start);
+        return text;
+    }
+
+    // Encode la facture en UTF-8 dans le buffer fourni.
+    // Si le buffer est trop petit, sa position est restaurée et BufferOverflowException est levée.
+    public void writeTo(ByteBuffer buffer) {
+        int start = buffer.position();
+        try {
+            writeTo(new Utf8Appendable(buffer));
+        } catch (BufferOverflowException e) {
+            buffer.position(start);
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Diffuse la facture en UTF-8 par blocs de taille fixe au fil du parcours du panier,
+    // sans copie de la liste des produits : la mémoire reste constante quelle que soit la commande.
+    // Le canal n'est pas fermé.
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        StreamingAppendable out = new StreamingAppendable(channel);
+        writeTo(out);
+        out.flush();
+    }
+
+    // Le flux n'est ni vidé ni fermé
+    public void writeTo(OutputStream stream) throws IOException {
+        writeTo(Channels.newChannel(stream));
+    }
+
+    // Écrit la facture directement dans la destination (StringBuilder, Writer...), sans String intermédiaire.
+    // Le rendu se fait sous le verrou du panier, en parcourant ses lignes sans les copier : lignes et
+    // montants décrivent le même état. Une destination lente retarde d'autant les modifications du panier.
+    public void writeTo(Appendable invoice) throws IOException {
         ShoppingCart cart = order.getShoppingCart();
+        synchronized (cart) {
+            render(cart, invoice);
+        }
+    }
+
+    private void render(ShoppingCart cart, Appendable invoice) throws IOException {
+        invoice.append("=== FACTURE ===\n\n");
+
+        long scale = Money.scaleOf(cart.getCurrency());
         if (cart.getNumberOfItems() == 0) {
             invoice.append("Aucun article dans le panier\n\n");
         } else {
             invoice.append("Articles:\n");
-            for (Product product : cart.getProductList()) {
-                invoice.append(String.format("- %s: %.2f €\n", 
-                    product.getName(), product.getPrice()));
+            for (CartLine line : cart.getLines()) {
+                Product product = line.getProduct();
+                long price = product.getPriceAmount().getMinorUnits();
+                // Une ligne par unité, comme dans le format historique
+                for (int i = 0; i < line.getQuantity(); i++) {
+                    invoice.append("- ").append(product.getName()).append(": ");
+                    AmountFormat.appendAmount(invoice, price, scale);
+                    invoice.append(" €\n");
+                }
+            }
+            invoice.append("\nSous-total: ");
+            AmountFormat.appendAmount(invoice, cart.getSubtotalMinorUnits(), scale);
+            invoice.append(" €\n");
+            if (order.getPromotionSavingsMinorUnits() > 0) {
+                invoice.append("Promotions: -");
+                AmountFormat.appendAmount(invoice, order.getPromotionSavingsMinorUnits(), scale);
+                invoice.append(" €\n");
             }
-            invoice.append(String.format("\nSous-total: %.2f €\n", 
-                cart.getTotalPrice()));
         }
-        
-        invoice.append(String.format("Frais de livraison: %.2f €\n", 
-            order.getDeliveryFee()));
-        
+
+        invoice.append("Frais de livraison: ");
+        AmountFormat.appendAmount(invoice, order.getDeliveryFeeMinorUnits(), scale);
+        invoice.append(" €\n");
+
         if (order.getDiscount() > 0) {
-            invoice.append(String.format("Remise: %.2f%%\n", 
-                order.getDiscount()));
+            invoice.append("Remise: ");
+            AmountFormat.appendHundredths(invoice, order.getDiscountBasisPoints());
+            invoice.append("%\n");
         }
-        
+
         // Récupérer le total actuel de la commande (qui inclut les remises)
-        invoice.append(String.format("\nTotal: %.2f €\n", 
-            order.getTotalPrice()));
-        
-        return invoice.toString();
+        invoice.append("\nTotal: ");
+        AmountFormat.appendAmount(invoice, order.getTotalMinorUnits(), scale);
+        invoice.append(" €\n");
     }
 }
@@ -0,0 +1,140 @@
+package fr.ekod;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+import java.util.Objects;
+
+// Montant exact exprimé en unités mineures (centimes pour l'euro).
+// Les calculs internes travaillent directement sur les long pour éviter toute allocation.
+public final class Money implements Comparable<Money> {
+    public static final Currency EUR = Currency.getInstance("EUR");
+
+    private static final long[] POWERS_OF_TEN = {1L, 10L, 100L, 1_000L, 10_000L};
+
+    private final long minorUnits;
+    private final Currency currency;
+
+    private Money(long minorUnits, Currency currency) {
+        this.minorUnits = minorUnits;
+        this.currency = currency;
+    }
+
+    public static Money ofMinor(long minorUnits, Currency currency) {
+        Objects.requireNonNull(currency, "La devise est obligatoire");
+        return new Money(minorUnits, currency);
+    }
+
+    public static Money ofMinor(long minorUnits) {
+        return new Money(minorUnits, EUR);
+    }
+
+    // Conversion depuis un montant décimal, arrondi à l'unité mineure la plus proche
+    public static Money of(double amount, Currency currency) {
+        Objects.requireNonNull(currency, "La devise est obligatoire");
+        if (Double.isNaN(amount) || Double.isInfinite(amount)) {
+            throw new IllegalArgumentException("Montant invalide : " + amount);
+        }
+        // Arrondi sur l'écriture décimale du double, comme String.format("%.2f") et Order.setDiscount :
+        // Math.round(amount * 100) arrondirait 0.285 ou 1.005 à l'unité inférieure (erreur binaire)
+        try {
+            return new Money(BigDecimal.valueOf(amount)
+                    .multiply(BigDecimal.valueOf(scaleOf(currency)))
+                    .setScale(0, RoundingMode.HALF_UP)
+                    .longValueExact(), currency);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Montant hors limites : " + amount, e);
+        }
+    }
+
+    public static Money of(double amount) {
+        return of(amount, EUR);
+    }
+
+    public static Money zero(Currency currency) {
+        return ofMinor(0, currency);
+    }
+
+    static long scaleOf(Currency currency) {
+        int digits = Math.max(0, currency.getDefaultFractionDigits());
+        if (digits >= POWERS_OF_TEN.length) {
+            throw new IllegalArgumentException("Devise non supportée : " + currency);
+        }
+        return POWERS_OF_TEN[digits];
+    }
+
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public Money plus(Money other) {
+        checkSameCurrency(other);
+        return new Money(Math.addExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money minus(Money other) {
+        checkSameCurrency(other);
+        return new Money(Math.subtractExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money times(long quantity) {
+        return new Money(Math.multiplyExact(minorUnits, quantity), currency);
+    }
+
+    public boolean isZero() {
+        return minorUnits == 0;
+    }
+
+    public double toDouble() {
+        return (double) minorUnits / scaleOf(currency);
+    }
+
+    private void checkSameCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException("Devises incompatibles : " + currency + " et " + other.currency);
+        }
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        checkSameCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Money)) {
+            return false;
+        }
+        Money other = (Money) o;
+        return minorUnits == other.minorUnits && currency.equals(other.currency);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits) * 31 + currency.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        long scale = scaleOf(currency);
+        StringBuilder sb = new StringBuilder();
+        if (minorUnits < 0) {
+            sb.append('-');
+        }
+        long abs = Math.abs(minorUnits);
+        sb.append(abs / scale);
+        if (scale > 1) {
+            String fraction = Long.toString(abs % scale + scale);
+            sb.append('.').append(fraction, 1, fraction.length());
+        }
+        return sb.append(' ').append(currency.getCurrencyCode()).toString();
+    }
+}
@@ -1,65 +1,291 @@
 package fr.ekod;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
 import fr.ekod.exceptions.InvalidDiscountCodeException;
+import fr.ekod.metrics.CheckoutMetrics;
+import fr.ekod.persistence.Journal;
+import fr.ekod.pricing.PricingEngine;
 
 public class Order {
+    private static final AtomicLong NEXT_ID = new AtomicLong(1);
+    private static final CheckoutMetrics METRICS = CheckoutMetrics.get();
+
+    private final long id;
+    private final Instant createdAt;
     private ShoppingCart shoppingCart;
-    private double totalPrice;
+    // Remise en pourcentage, telle que saisie
     private double discount;
-    private double deliveryFee;
+    // Remise en points de base (15.00% = 1500)
+    private long discountBasisPoints;
+    // Montant en unités mineures de la devise du panier
+    private long deliveryFee;
+    // Moteur de prix optionnel : promotions produit, paliers et codes promo
+    private PricingEngine pricing;
+    private String discountCode;
+    // Incrémentée à chaque changement affectant le total ; le total n'est recalculé qu'à la lecture
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicReference<Totals> totals = new AtomicReference<>(new Totals(-1, 0, 0));
 
     public Order(ShoppingCart shoppingCart, double deliveryFee) {
+        this(shoppingCart, Money.of(deliveryFee, shoppingCart.getCurrency()));
+    }
+
+    public Order(ShoppingCart shoppingCart, Money deliveryFee) {
+        this(NEXT_ID.getAndIncrement(), shoppingCart, deliveryFee);
+    }
+
+    // Identifiant explicite, par exemple lors d'une reprise après incident
+    public Order(long id, ShoppingCart shoppingCart, Money deliveryFee) {
+        this(id, shoppingCart, deliveryFee, Instant.now());
+    }
+
+    public Order(long id, ShoppingCart shoppingCart, Money deliveryFee, Instant createdAt) {
+        NEXT_ID.accumulateAndGet(id + 1, Math::max);
+        this.id = id;
+        this.createdAt = createdAt;
         this.shoppingCart = shoppingCart;
         this.discount = 0.0;
-        this.deliveryFee = deliveryFee;
+        this.deliveryFee = checkCurrency(deliveryFee).getMinorUnits();
+        Journal journal = shoppingCart.getJournal();
+        if (journal != null) {
+            journal.orderCreated(this, this.deliveryFee);
+        }
         // Établir la liaison bidirectionnelle
         shoppingCart.setAssociatedOrder(this);
         updateFromCart();
     }
 
+    public long getId() {
+        return id;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
     public void updateFromCart() {
-        calculateTotal();
+        invalidate();
     }
 
+    // Version de la commande : change dès que le panier, la remise ou les frais changent
+    public long getVersion() {
+        return version.get();
+    }
+
+    private void invalidate() {
+        version.incrementAndGet();
+    }
+
+    // Recalcule le total immédiatement
     public void calculateTotal() {
-        double subtotal = shoppingCart.getTotalPrice();
-        if (discount > 0) {
-            // Appliquer la remise sur le sous-total seulement
-            totalPrice = (subtotal * (1 - discount / 100.0)) + deliveryFee;
+        computeTotals();
+    }
+
+    private Totals computeTotals() {
+        long start = System.nanoTime();
+        long stamp = version.get();
+        long subtotal;
+        long promotionSavings = 0;
+        // Sous-total et promotions relevés sur le même état du panier
+        synchronized (shoppingCart) {
+            subtotal = shoppingCart.getSubtotalMinorUnits();
+            if (pricing != null) {
+                promotionSavings = pricing.quote(shoppingCart, discountCode).getSavingsMinorUnits();
+                subtotal -= promotionSavings;
+            }
+        }
+        long totalPrice;
+        if (discountBasisPoints > 0) {
+            // Appliquer la remise sur le sous-total seulement, arrondie au centime le plus proche
+            long discountAmount = Math.floorDiv(Math.multiplyExact(subtotal, discountBasisPoints) + 5_000, 10_000);
+            totalPrice = subtotal - discountAmount + deliveryFee;
         } else {
             totalPrice = subtotal + deliveryFee;
         }
+        // Estampillé avec la version lue avant le calcul : un changement concurrent forcera un nouveau calcul
+        Totals computed = new Totals(stamp, totalPrice, promotionSavings);
+        publish(computed);
+        METRICS.getCalculateTotalLatency().record(System.nanoTime() - start);
+        return computed;
+    }
+
+    // Un calcul plus lent, parti d'une version antérieure, ne remplace jamais un total plus récent
+    private void publish(Totals computed) {
+        Totals current = totals.get();
+        while (current.version < computed.version) {
+            Totals witness = totals.compareAndExchange(current, computed);
+            if (witness == current) {
+                return;
+            }
+            current = witness;
+        }
+    }
+
+    // Le total calculé ici est retourné tel quel : l'appelant voit au moins ses propres modifications,
+    // même si un autre calcul publie entre-temps
+    private Totals totals() {
+        Totals current = totals.get();
+        if (current.version != version.get()) {
+            current = computeTotals();
+        }
+        return current;
     }
 
     public void setDiscount(double discount) {
-        if (discount < 0 || discount > 100) {
+        if (Double.isNaN(discount) || discount < 0 || discount > 100) {
             throw new IllegalArgumentException("La remise doit être entre 0 et 100%");
         }
+        long basisPoints = BigDecimal.valueOf(discount)
+                .movePointRight(2)
+                .setScale(0, RoundingMode.HALF_UP)
+                .longValueExact();
+        Journal journal = shoppingCart.getJournal();
+        if (journal != null) {
+            journal.discountChanged(this, discount);
+        }
         this.discount = discount;
-        calculateTotal();
+        this.discountBasisPoints = basisPoints;
+        invalidate();
+    }
+
+    public void setPricingEngine(PricingEngine pricing) {
+        if (pricing != null && !pricing.getCurrency().equals(shoppingCart.getCurrency())) {
+            throw new IllegalArgumentException("La devise doit être celle du panier : " + shoppingCart.getCurrency());
+        }
+        // Le code éventuel relevait de l'ancien moteur : son utilisation est rendue
+        if (this.pricing != null && discountCode != null) {
+            this.pricing.release(discountCode);
+        }
+        this.discountCode = null;
+        this.pricing = pricing;
+        invalidate();
+    }
+
+    // Le code est vérifié sur le panier actuel puis consommé ; s'il cesse d'être applicable, il est ignoré.
+    // Réappliquer le code déjà en place le revérifie sans consommer une seconde utilisation.
+    // Le code n'est pas journalisé, le moteur de prix ne l'étant pas : après une reprise, il faut
+    // rattacher le moteur puis réappliquer le code.
+    public void applyDiscountCode(String code) throws InvalidDiscountCodeException {
+        if (pricing == null) {
+            METRICS.discountRejected();
+            throw new InvalidDiscountCodeException("Aucun code promo n'est accepté pour cette commande : " + code);
+        }
+        boolean alreadyApplied = PricingEngine.sameCode(code, discountCode);
+        try {
+            pricing.checkCode(shoppingCart, code);
+            if (alreadyApplied) {
+                return;
+            }
+            pricing.redeem(code);
+        } catch (InvalidDiscountCodeException e) {
+            METRICS.discountRejected();
+            throw e;
+        }
+        if (discountCode != null) {
+            pricing.release(discountCode);
+        }
+        this.discountCode = code;
+        invalidate();
+    }
+
+    public void removeDiscountCode() {
+        if (discountCode != null) {
+            pricing.release(discountCode);
+        }
+        this.discountCode = null;
+        invalidate();
     }
 
     public void setDeliveryFee(double deliveryFee) {
         if (deliveryFee < 0) {
             throw new IllegalArgumentException("Les frais de livraison ne peuvent pas être négatifs");
         }
-        this.deliveryFee = deliveryFee;
-        calculateTotal();
+        setDeliveryFee(Money.of(deliveryFee, shoppingCart.getCurrency()));
+    }
+
+    public void setDeliveryFee(Money deliveryFee) {
+        if (checkCurrency(deliveryFee).getMinorUnits() < 0) {
+            throw new IllegalArgumentException("Les frais de livraison ne peuvent pas être négatifs");
+        }
+        Journal journal = shoppingCart.getJournal();
+        if (journal != null) {
+            journal.deliveryFeeChanged(this, deliveryFee.getMinorUnits());
+        }
+        this.deliveryFee = deliveryFee.getMinorUnits();
+        invalidate();
+    }
+
+    private Money checkCurrency(Money amount) {
+        if (!amount.getCurrency().equals(shoppingCart.getCurrency())) {
+            throw new IllegalArgumentException("La devise doit être celle du panier : " + shoppingCart.getCurrency());
+        }
+        return amount;
     }
 
     public double getTotalPrice() {
-        return totalPrice;
+        return getTotalAmount().toDouble();
     }
 
-    public double getDeliveryFee() {
+    public Money getTotalAmount() {
+        return Money.ofMinor(totals().total, shoppingCart.getCurrency());
+    }
+
+    // Accès sans allocation pour le rendu des factures
+    long getTotalMinorUnits() {
+        return totals().total;
+    }
+
+    long getDeliveryFeeMinorUnits() {
         return deliveryFee;
     }
 
+    public double getDeliveryFee() {
+        return getDeliveryFeeAmount().toDouble();
+    }
+
+    public Money getDeliveryFeeAmount() {
+        return Money.ofMinor(deliveryFee, shoppingCart.getCurrency());
+    }
+
+    public String getDiscountCode() {
+        return discountCode;
+    }
+
+    public Money getPromotionSavings() {
+        return Money.ofMinor(totals().promotionSavings, shoppingCart.getCurrency());
+    }
+
+    long getPromotionSavingsMinorUnits() {
+        return totals().promotionSavings;
+    }
+
     public double getDiscount() {
         return discount;
     }
 
+    public long getDiscountBasisPoints() {
+        return discountBasisPoints;
+    }
+
     public ShoppingCart getShoppingCart() {
         return shoppingCart;
     }
-}
\ No newline at end of file
+
+    // Total calculé pour une version donnée, publié d'un bloc
+    private static final class Totals {
+        final long version;
+        final long total;
+        final long promotionSavings;
+
+        Totals(long version, long total, long promotionSavings) {
+            this.version = version;
+            this.total = total;
+            this.promotionSavings = promotionSavings;
+        }
+    }
+}
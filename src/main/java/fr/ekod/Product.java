@@ -1,16 +1,40 @@
 package fr.ekod;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import fr.ekod.exceptions.OutOfStockException;
+import fr.ekod.inventory.StockStore;
 
 public class Product {
-    private String name;
-    private double price;
-    private int stock;
+    // SKU des produits créés hors catalogue
+    public static final int NO_SKU = -1;
+
+    private final String name;
+    private final Money price;
+    private final int sku;
+    // Stock propre au produit, ou emplacement "sku" du StockStore pour un produit du catalogue
+    private final AtomicInteger stock;
+    private final StockStore stockStore;
 
     public Product(String name, double price, int stock) {
+        this(name, Money.of(price), stock);
+    }
+
+    public Product(String name, Money price, int stock) {
+        this.name = name;
+        this.price = price;
+        this.sku = NO_SKU;
+        this.stock = new AtomicInteger(stock);
+        this.stockStore = null;
+    }
+
+    // Produit adossé aux colonnes d'un ProductCatalog
+    Product(String name, Money price, int sku, StockStore stockStore) {
         this.name = name;
         this.price = price;
-        this.stock = stock;
+        this.sku = sku;
+        this.stock = null;
+        this.stockStore = stockStore;
     }
 
     public String getName() {
@@ -18,21 +42,58 @@ public class Product {
     }
 
     public double getPrice() {
+        return price.toDouble();
+    }
+
+    public Money getPriceAmount() {
         return price;
     }
 
+    public int getSku() {
+        return sku;
+    }
+
     public int getStock() {
-        return stock;
+        return stockStore != null ? stockStore.get(sku) : stock.get();
+    }
+
+    // Réserve atomiquement la quantité demandée (compare-and-set, sans verrou).
+    // Retourne false si le stock disponible est insuffisant : aucune unité n'est alors réservée.
+    public boolean tryReserve(int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("La quantité doit être strictement positive");
+        }
+        if (stockStore != null) {
+            return stockStore.tryReserve(sku, quantity);
+        }
+        int current;
+        do {
+            current = stock.get();
+            if (current < quantity) {
+                return false;
+            }
+        } while (!stock.compareAndSet(current, current - quantity));
+        return true;
+    }
+
+    public void release(int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("La quantité doit être strictement positive");
+        }
+        if (stockStore != null) {
+            stockStore.release(sku, quantity);
+        } else {
+            stock.addAndGet(quantity);
+        }
     }
 
     public void decreaseStock() throws OutOfStockException {
-        if (stock <= 0) {
+        if (!tryReserve(1)) {
             throw new OutOfStockException("Le produit " + name + " est en rupture de stock");
         }
-        stock--;
     }
 
     public void increaseStock() {
-        stock++;
+        release(1);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,199 @@
+package fr.ekod;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Currency;
+
+import fr.ekod.inventory.HeapStockStore;
+import fr.ekod.inventory.StockStore;
+
+// Catalogue produits indexé par SKU dense (0, 1, 2...).
+// Les attributs sont rangés en colonnes de types primitifs (structure de tableaux) et le stock
+// dans un StockStore : un produit n'occupe que quelques octets par colonne, sans boxing.
+// Les objets Product ne sont créés qu'à la demande, une seule fois par SKU.
+public class ProductCatalog {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final VarHandle VIEWS = MethodHandles.arrayElementVarHandle(Product[].class);
+
+    private final Currency currency;
+    private final StockStore stock;
+
+    // Colonnes, indexées par SKU. Les écritures sont publiées aux lecteurs par l'écriture de size.
+    private volatile String[] names = new String[INITIAL_CAPACITY];
+    private volatile long[] prices = new long[INITIAL_CAPACITY];
+    private volatile Product[] views = new Product[INITIAL_CAPACITY];
+    private volatile int size;
+
+    // Index des noms en adressage ouvert : contient sku + 1, 0 pour une case vide
+    private volatile int[] nameIndex = new int[INITIAL_CAPACITY * 2];
+
+    public ProductCatalog() {
+        this(Money.EUR, new HeapStockStore());
+    }
+
+    // Un stockage persistant déjà rempli doit être rattaché avec restore() avant tout register()
+    public ProductCatalog(Currency currency, StockStore stock) {
+        this.currency = currency;
+        this.stock = stock;
+    }
+
+    public synchronized Product register(String name, Money price, int initialStock) {
+        checkNewProduct(name, price);
+        int sku = size;
+        if (sku < stock.size()) {
+            throw new IllegalStateException("Le SKU " + sku + " a un stock persisté : utiliser restore()");
+        }
+        if (stock.allocate(initialStock) != sku) {
+            throw new IllegalStateException("Le stockage n'est pas aligné sur les SKU du catalogue");
+        }
+        return add(sku, name, price);
+    }
+
+    public Product register(String name, double price, int initialStock) {
+        return register(name, Money.of(price, currency), initialStock);
+    }
+
+    // Rattache le SKU suivant à l'emplacement déjà présent dans le stockage (redémarrage sur un
+    // MappedStockStore par exemple) : le stock persisté est conservé tel quel, sans rechargement.
+    public synchronized Product restore(String name, Money price) {
+        checkNewProduct(name, price);
+        int sku = size;
+        if (sku >= stock.size()) {
+            throw new IllegalStateException("Aucun stock persisté pour le SKU " + sku);
+        }
+        return add(sku, name, price);
+    }
+
+    private void checkNewProduct(String name, Money price) {
+        if (!currency.equals(price.getCurrency())) {
+            throw new IllegalArgumentException("Le catalogue est en " + currency + " : " + price);
+        }
+        if (findSku(name) != Product.NO_SKU) {
+            throw new IllegalArgumentException("Le produit " + name + " existe déjà dans le catalogue");
+        }
+    }
+
+    private Product add(int sku, String name, Money price) {
+        if (sku == names.length) {
+            grow();
+        }
+        names[sku] = name;
+        prices[sku] = price.getMinorUnits();
+        indexName(name, sku);
+        size = sku + 1;
+        return get(sku);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Stock persistant (MappedStockStore) : les réservations des paniers y sont déjà prélevées
+    public boolean hasDurableStock() {
+        return stock.isDurable();
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    // Vue Product du SKU, créée au premier accès puis toujours la même instance
+    public Product get(int sku) {
+        checkSku(sku);
+        Product[] columns = views;
+        Product product = (Product) VIEWS.getAcquire(columns, sku);
+        if (product == null) {
+            synchronized (this) {
+                columns = views;
+                product = columns[sku];
+                if (product == null) {
+                    product = new Product(names[sku], Money.ofMinor(prices[sku], currency), sku, stock);
+                    VIEWS.setRelease(columns, sku, product);
+                }
+            }
+        }
+        return product;
+    }
+
+    // SKU du produit portant ce nom, ou Product.NO_SKU
+    public int findSku(String name) {
+        if (size == 0) {
+            return Product.NO_SKU;
+        }
+        int[] index = nameIndex;
+        String[] columns = names;
+        int mask = index.length - 1;
+        for (int slot = spread(name.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+            int entry = index[slot];
+            if (entry == 0) {
+                return Product.NO_SKU;
+            }
+            if (name.equals(columns[entry - 1])) {
+                return entry - 1;
+            }
+        }
+    }
+
+    public Product findByName(String name) {
+        int sku = findSku(name);
+        return sku == Product.NO_SKU ? null : get(sku);
+    }
+
+    public String getName(int sku) {
+        checkSku(sku);
+        return names[sku];
+    }
+
+    public long getPriceMinorUnits(int sku) {
+        checkSku(sku);
+        return prices[sku];
+    }
+
+    public Money getPrice(int sku) {
+        return Money.ofMinor(getPriceMinorUnits(sku), currency);
+    }
+
+    public int getStock(int sku) {
+        checkSku(sku);
+        return stock.get(sku);
+    }
+
+    private void checkSku(int sku) {
+        if (sku < 0 || sku >= size) {
+            throw new IllegalArgumentException("SKU inconnu : " + sku);
+        }
+    }
+
+    // Les nouveaux tableaux sont entièrement remplis avant d'être publiés
+    private void grow() {
+        int capacity = names.length * 2;
+        String[] grownNames = Arrays.copyOf(names, capacity);
+        // Taux de remplissage de l'index maintenu sous 50 %
+        int[] grownIndex = new int[capacity * 2];
+        for (int sku = 0; sku < size; sku++) {
+            indexName(grownIndex, grownNames[sku], sku);
+        }
+        prices = Arrays.copyOf(prices, capacity);
+        names = grownNames;
+        nameIndex = grownIndex;
+        views = Arrays.copyOf(views, capacity);
+    }
+
+    private void indexName(String name, int sku) {
+        indexName(nameIndex, name, sku);
+    }
+
+    private static void indexName(int[] index, String name, int sku) {
+        int mask = index.length - 1;
+        int slot = spread(name.hashCode()) & mask;
+        while (index[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        index[slot] = sku + 1;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -1,55 +1,395 @@
 package fr.ekod;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ObjIntConsumer;
 
+import fr.ekod.events.CartEventBus;
 import fr.ekod.exceptions.OutOfStockException;
+import fr.ekod.metrics.CheckoutMetrics;
+import fr.ekod.persistence.Journal;
+import fr.ekod.repository.ProductIndex;
 
 public class ShoppingCart {
-    private List<Product> products;
+    private static final AtomicLong NEXT_ID = new AtomicLong(1);
+    private static final CheckoutMetrics METRICS = CheckoutMetrics.get();
+
+    private final long id;
+    // Une ligne par produit distinct, dans l'ordre d'ajout ; protégées par le verrou du panier,
+    // que l'expiration peut vider depuis un autre thread
+    private Map<Product, CartLine> lines;
+    // Vue en lecture seule créée une fois, sans copie
+    private Collection<CartLine> linesView;
+    // Écrits sous le verrou du panier, lisibles sans verrou
+    private volatile int numberOfItems;
+    // Sous-total en unités mineures, maintenu à chaque modification
+    private volatile long subtotal;
+    private final Currency currency;
     private Order associatedOrder;
+    private Journal journal;
+    private CartEventBus eventBus;
+    private ProductIndex productIndex;
+    // Horodatage (System.nanoTime) de la dernière modification, lu par l'expiration des paniers
+    private volatile long lastModifiedNanos = System.nanoTime();
 
     public ShoppingCart() {
-        this.products = new ArrayList<>();
+        this(Money.EUR);
+    }
+
+    public ShoppingCart(Currency currency) {
+        this(NEXT_ID.getAndIncrement(), currency);
+    }
+
+    // Identifiant explicite, par exemple lors d'une reprise après incident :
+    // les identifiants attribués ensuite automatiquement lui seront supérieurs.
+    public ShoppingCart(long id, Currency currency) {
+        NEXT_ID.accumulateAndGet(id + 1, Math::max);
+        this.id = id;
+        this.lines = new LinkedHashMap<>();
+        this.linesView = Collections.unmodifiableCollection(lines.values());
+        this.currency = currency;
+    }
+
+    public long getId() {
+        return id;
     }
 
     public void setAssociatedOrder(Order order) {
         this.associatedOrder = order;
     }
 
+    public Order getAssociatedOrder() {
+        return associatedOrder;
+    }
+
+    // Journal partagé par le panier et sa commande
+    public void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    Journal getJournal() {
+        return journal;
+    }
+
+    // Index produit -> paniers, prévenu à la création et à la suppression des lignes (voir ProductIndex.attach)
+    public void setProductIndex(ProductIndex productIndex) {
+        this.productIndex = productIndex;
+    }
+
+    // Bus recevant chaque variation de quantité ; les abonnés sont notifiés par lots
+    public void setEventBus(CartEventBus eventBus) {
+        this.eventBus = eventBus;
+    }
+
     public void addProduct(Product product) throws OutOfStockException {
-        if (product.getStock() <= 0) {
+        addProduct(product, 1);
+    }
+
+    // Latence mesurée une fois le verrou du panier acquis, sans l'attente éventuelle. L'horodatage de
+    // modification sert de fin de mesure : un seul appel à System.nanoTime de plus par opération réussie.
+    public synchronized void addProduct(Product product, int quantity) throws OutOfStockException {
+        long start = System.nanoTime();
+        try {
+            addLine(product, quantity);
+        } catch (OutOfStockException | RuntimeException e) {
+            METRICS.getAddProductLatency().record(System.nanoTime() - start);
+            throw e;
+        }
+        METRICS.getAddProductLatency().record(lastModifiedNanos - start);
+    }
+
+    private void addLine(Product product, int quantity) throws OutOfStockException {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("La quantité doit être strictement positive");
+        }
+        if (!currency.equals(product.getPriceAmount().getCurrency())) {
+            throw new IllegalArgumentException("Le produit " + product.getName() + " n'est pas vendu en " + currency);
+        }
+        // Débordement détecté avant toute réservation, comme dans addAll
+        long newSubtotal = Math.addExact(subtotal, linePrice(product, quantity));
+        // Vérification et décrémentation en une seule opération atomique
+        if (!product.tryReserve(quantity)) {
+            METRICS.stockOutRejected();
             throw new OutOfStockException("Le produit " + product.getName() + " est en rupture de stock");
         }
-        products.add(product);
-        product.decreaseStock();
-        notifyOrderUpdate();
+        if (journal != null) {
+            try {
+                journal.productAdded(this, product, quantity);
+            } catch (RuntimeException e) {
+                product.release(quantity);
+                throw e;
+            }
+        }
+        putLine(product, quantity, newSubtotal);
+    }
+
+    // Recrée une ligne dont le stock est déjà réservé, sans nouvelle réservation ni journalisation :
+    // reprise après incident sur un stock persistant (voir ProductCatalog.hasDurableStock)
+    public synchronized void restoreProduct(Product product, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("La quantité doit être strictement positive");
+        }
+        if (!currency.equals(product.getPriceAmount().getCurrency())) {
+            throw new IllegalArgumentException("Le produit " + product.getName() + " n'est pas vendu en " + currency);
+        }
+        putLine(product, quantity, Math.addExact(subtotal, linePrice(product, quantity)));
+    }
+
+    // Le nouveau sous-total est calculé par l'appelant, avant toute réservation
+    private void putLine(Product product, int quantity, long newSubtotal) {
+        CartLine line = lines.get(product);
+        if (line == null) {
+            lines.put(product, new CartLine(product, quantity));
+            if (productIndex != null) {
+                productIndex.lineAdded(this, product);
+            }
+        } else {
+            line.increase(quantity);
+        }
+        numberOfItems += quantity;
+        subtotal = newSubtotal;
+        notifyChange(product, quantity);
+    }
+
+    // Ajoute plusieurs produits en tout ou rien : si une seule réservation échoue, les précédentes sont
+    // rendues et le panier reste inchangé. Les réservations sont des CAS sans verrou, mais elles suivent
+    // un ordre global (SKU, puis identité pour les produits hors catalogue) : deux paniers se disputant
+    // les dernières unités de {A, B} et {B, A} se heurtent sur le même produit en premier, et l'un des
+    // deux aboutit au lieu d'échouer tous les deux. Les lignes gardent l'ordre de la map.
+    public synchronized void addAll(Map<Product, Integer> quantities) throws OutOfStockException {
+        int size = quantities.size();
+        Product[] products = new Product[size];
+        int[] counts = new int[size];
+        long added = 0;
+        int n = 0;
+        for (Map.Entry<Product, Integer> entry : quantities.entrySet()) {
+            Product product = entry.getKey();
+            int quantity = entry.getValue();
+            if (quantity <= 0) {
+                throw new IllegalArgumentException("La quantité doit être strictement positive");
+            }
+            if (!currency.equals(product.getPriceAmount().getCurrency())) {
+                throw new IllegalArgumentException("Le produit " + product.getName() + " n'est pas vendu en " + currency);
+            }
+            // Débordement détecté avant toute réservation
+            added = Math.addExact(added, linePrice(product, quantity));
+            products[n] = product;
+            counts[n] = quantity;
+            n++;
+        }
+        long newSubtotal = Math.addExact(subtotal, added);
+
+        Integer[] reservationOrder = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            reservationOrder[i] = i;
+        }
+        Arrays.sort(reservationOrder, (a, b) -> compareForReservation(products[a], products[b]));
+        for (int r = 0; r < size; r++) {
+            int i = reservationOrder[r];
+            if (!products[i].tryReserve(counts[i])) {
+                for (int done = 0; done < r; done++) {
+                    int j = reservationOrder[done];
+                    products[j].release(counts[j]);
+                }
+                METRICS.stockOutRejected();
+                throw new OutOfStockException("Le produit " + products[i].getName() + " est en rupture de stock");
+            }
+        }
+        if (journal != null) {
+            try {
+                journal.productsAdded(this, products, counts);
+            } catch (RuntimeException e) {
+                releaseAll(products, counts, size);
+                throw e;
+            }
+        }
+
+        for (int i = 0; i < size; i++) {
+            CartLine line = lines.get(products[i]);
+            if (line == null) {
+                lines.put(products[i], new CartLine(products[i], counts[i]));
+                if (productIndex != null) {
+                    productIndex.lineAdded(this, products[i]);
+                }
+            } else {
+                line.increase(counts[i]);
+            }
+            numberOfItems += counts[i];
+        }
+        subtotal = newSubtotal;
+        for (int i = 0; i < size; i++) {
+            notifyChange(products[i], counts[i]);
+        }
+    }
+
+    // Retire toutes les lignes et restitue leur stock. Hors mesure de removeProduct : un vidage,
+    // notamment par expiration, n'est pas un retrait demandé par le client.
+    public synchronized void clear() {
+        for (CartLine line : new ArrayList<>(lines.values())) {
+            removeLine(line.getProduct(), line.getQuantity());
+        }
+    }
+
+    // Vide le panier seulement s'il n'a pas été modifié depuis l'instant donné (System.nanoTime),
+    // vérifié sous le verrou du panier pour ne pas écarter un ajout concurrent
+    public synchronized boolean clearIfUnchangedSince(long nanos) {
+        if (lastModifiedNanos - nanos > 0) {
+            return false;
+        }
+        clear();
+        return true;
+    }
+
+    public long getLastModifiedNanos() {
+        return lastModifiedNanos;
+    }
+
+    // Produits du catalogue par SKU croissant, puis produits hors catalogue ; à SKU égal (catalogues
+    // différents), l'identité départage
+    private static int compareForReservation(Product a, Product b) {
+        int skuA = a.getSku() == Product.NO_SKU ? Integer.MAX_VALUE : a.getSku();
+        int skuB = b.getSku() == Product.NO_SKU ? Integer.MAX_VALUE : b.getSku();
+        if (skuA != skuB) {
+            return Integer.compare(skuA, skuB);
+        }
+        return Integer.compare(System.identityHashCode(a), System.identityHashCode(b));
+    }
+
+    private static void releaseAll(Product[] products, int[] counts, int reserved) {
+        for (int i = 0; i < reserved; i++) {
+            products[i].release(counts[i]);
+        }
     }
 
     public void removeProduct(Product product) {
-        if (products.remove(product)) {
-            product.increaseStock();
-            notifyOrderUpdate();
+        removeProduct(product, 1);
+    }
+
+    // Retire au plus la quantité présente dans le panier et restitue le stock correspondant
+    public synchronized void removeProduct(Product product, int quantity) {
+        long start = System.nanoTime();
+        boolean removed;
+        try {
+            removed = removeLine(product, quantity);
+        } catch (RuntimeException e) {
+            METRICS.getRemoveProductLatency().record(System.nanoTime() - start);
+            throw e;
         }
+        METRICS.getRemoveProductLatency().record((removed ? lastModifiedNanos : System.nanoTime()) - start);
     }
 
-    private void notifyOrderUpdate() {
+    // Retourne false si le produit n'était pas dans le panier
+    private boolean removeLine(Product product, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("La quantité doit être strictement positive");
+        }
+        CartLine line = lines.get(product);
+        if (line == null) {
+            return false;
+        }
+        int removed = Math.min(quantity, line.getQuantity());
+        if (journal != null) {
+            journal.productRemoved(this, product, removed);
+        }
+        line.decrease(removed);
+        if (line.getQuantity() == 0) {
+            lines.remove(product);
+            if (productIndex != null) {
+                productIndex.lineRemoved(this, product);
+            }
+        }
+        numberOfItems -= removed;
+        subtotal = Math.subtractExact(subtotal, linePrice(product, removed));
+        product.release(removed);
+        notifyChange(product, -removed);
+        return true;
+    }
+
+    // La commande est invalidée immédiatement (simple changement de version, le total est recalculé
+    // à la lecture) ; les autres abonnés passent par le bus
+    private void notifyChange(Product product, int delta) {
+        lastModifiedNanos = System.nanoTime();
         if (associatedOrder != null) {
             associatedOrder.updateFromCart();
         }
+        if (eventBus != null) {
+            eventBus.publish(this, product, delta);
+        }
+    }
+
+    private static long linePrice(Product product, int quantity) {
+        return Math.multiplyExact(product.getPriceAmount().getMinorUnits(), (long) quantity);
     }
 
     public double getTotalPrice() {
-        return products.stream()
-                .mapToDouble(Product::getPrice)
-                .sum();
+        return (double) subtotal / Money.scaleOf(currency);
+    }
+
+    public Money getTotalAmount() {
+        return Money.ofMinor(subtotal, currency);
+    }
+
+    // Accès sans allocation pour le calcul des totaux
+    long getSubtotalMinorUnits() {
+        return subtotal;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    // Copie : une entrée par unité, comme avant l'introduction des lignes.
+    // Pour un simple parcours, préférer getLines() ou forEachLine() qui ne copient rien.
+    public synchronized List<Product> getProductList() {
+        List<Product> products = new ArrayList<>(numberOfItems);
+        for (CartLine line : lines.values()) {
+            for (int i = 0; i < line.getQuantity(); i++) {
+                products.add(line.getProduct());
+            }
+        }
+        return products;
     }
 
-    public List<Product> getProductList() {
-        return new ArrayList<>(products);
+    public synchronized int getQuantity(Product product) {
+        CartLine line = lines.get(product);
+        return line == null ? 0 : line.getQuantity();
     }
 
     public int getNumberOfItems() {
-        return products.size();
+        return numberOfItems;
+    }
+
+    public synchronized int getNumberOfLines() {
+        return lines.size();
+    }
+
+    // Vue en lecture seule sur les lignes, reflétant les modifications ultérieures du panier.
+    // Comme pour Collections.synchronizedMap, le parcours doit se faire sous synchronized (panier) :
+    // sinon une modification concurrente (ajout, expiration...) peut lever ConcurrentModificationException.
+    public Collection<CartLine> getLines() {
+        return linesView;
+    }
+
+    // Parcours des lignes sans copie ni allocation de ligne intermédiaire
+    public synchronized void forEachLine(ObjIntConsumer<Product> visitor) {
+        for (CartLine line : lines.values()) {
+            visitor.accept(line.getProduct(), line.getQuantity());
+        }
+    }
+
+    // Copie isolée des lignes à cet instant, insensible aux modifications ultérieures du panier
+    public synchronized List<CartLine> snapshot() {
+        List<CartLine> copy = new ArrayList<>(lines.size());
+        for (CartLine line : lines.values()) {
+            copy.add(new CartLine(line.getProduct(), line.getQuantity()));
+        }
+        return Collections.unmodifiableList(copy);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,39 @@
+package fr.ekod;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+// Encode en UTF-8 dans un buffer de taille fixe, vidé vers le canal à chaque remplissage :
+// la mémoire utilisée ne dépend pas de la taille du document produit.
+class StreamingAppendable extends Utf8Appendable {
+    static final int CHUNK_SIZE = 8192;
+
+    private WritableByteChannel channel;
+
+    StreamingAppendable(WritableByteChannel channel) {
+        super(ByteBuffer.allocate(CHUNK_SIZE));
+        this.channel = channel;
+    }
+
+    // Réutilise le buffer pour un nouveau document, vers une autre destination
+    void reset(WritableByteChannel channel) {
+        this.channel = channel;
+        buffer().clear();
+        clearPendingSurrogate();
+    }
+
+    @Override
+    protected void onBufferFull() throws IOException {
+        flush();
+    }
+
+    void flush() throws IOException {
+        ByteBuffer buffer = buffer();
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
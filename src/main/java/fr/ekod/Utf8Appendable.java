@@ -0,0 +1,89 @@
+package fr.ekod;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+// Appendable qui encode directement en UTF-8 dans un ByteBuffer, sans passer par une String
+class Utf8Appendable implements Appendable {
+    private final ByteBuffer buffer;
+    private char pendingHighSurrogate;
+
+    Utf8Appendable(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    ByteBuffer buffer() {
+        return buffer;
+    }
+
+    void clearPendingSurrogate() {
+        pendingHighSurrogate = 0;
+    }
+
+    // Appelé lorsque le buffer ne peut pas contenir le prochain caractère encodé
+    protected void onBufferFull() throws IOException {
+        throw new BufferOverflowException();
+    }
+
+    @Override
+    public Appendable append(CharSequence csq) throws IOException {
+        return append(csq, 0, csq.length());
+    }
+
+    @Override
+    public Appendable append(CharSequence csq, int start, int end) throws IOException {
+        for (int i = start; i < end; i++) {
+            append(csq.charAt(i));
+        }
+        return this;
+    }
+
+    @Override
+    public Appendable append(char c) throws IOException {
+        if (pendingHighSurrogate != 0) {
+            char high = pendingHighSurrogate;
+            pendingHighSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                writeCodePoint(Character.toCodePoint(high, c));
+                return this;
+            }
+            writeCodePoint('?');
+        }
+        if (Character.isHighSurrogate(c)) {
+            pendingHighSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            writeCodePoint('?');
+        } else {
+            writeCodePoint(c);
+        }
+        return this;
+    }
+
+    private void writeCodePoint(int codePoint) throws IOException {
+        int length = codePoint < 0x80 ? 1 : codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+        while (buffer.remaining() < length) {
+            onBufferFull();
+        }
+        switch (length) {
+            case 1:
+                buffer.put((byte) codePoint);
+                break;
+            case 2:
+                buffer.put((byte) (0xC0 | (codePoint >> 6)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+                break;
+            case 3:
+                buffer.put((byte) (0xE0 | (codePoint >> 12)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+                break;
+            default:
+                buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+                break;
+        }
+    }
+}
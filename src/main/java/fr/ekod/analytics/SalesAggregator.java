@@ -0,0 +1,201 @@
+package fr.ekod.analytics;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Currency;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import fr.ekod.CartLine;
+import fr.ekod.Money;
+import fr.ekod.Order;
+import fr.ekod.Product;
+import fr.ekod.ShoppingCart;
+import fr.ekod.concurrent.SkuTable;
+
+// Agrégats de ventes tenus au fil de l'eau : chaque commande finalisée est comptée une fois, dans des
+// compteurs LongAdder en unités mineures exactes. Les lectures du tableau de bord ne dépendent pas
+// de l'historique : totaux globaux, par SKU, et par fenêtre de temps glissante (anneau de fenêtres).
+public class SalesAggregator {
+    private final Currency currency;
+    private final Clock clock;
+    private final long windowMillis;
+
+    private final LongAdder orders = new LongAdder();
+    private final LongAdder revenue = new LongAdder();
+    private final LongAdder deliveryFees = new LongAdder();
+    private final LongAdder discountBasisPoints = new LongAdder();
+    private final LongAdder units = new LongAdder();
+
+    // Statistiques par SKU, créées au premier usage
+    private final SkuTable<SkuStats> skus = new SkuTable<>(64, SkuStats::new);
+
+    // Fenêtre i de l'anneau = numéro de fenêtre modulo la taille de l'anneau
+    private final AtomicReferenceArray<Window> windows;
+
+    // 60 fenêtres d'une minute : la dernière heure
+    public SalesAggregator() {
+        this(Money.EUR, Duration.ofMinutes(1), 60, Clock.systemUTC());
+    }
+
+    public SalesAggregator(Currency currency, Duration window, int windowCount, Clock clock) {
+        if (window.toMillis() <= 0 || windowCount <= 0) {
+            throw new IllegalArgumentException("La durée et le nombre de fenêtres doivent être positifs");
+        }
+        this.currency = currency;
+        this.clock = clock;
+        this.windowMillis = window.toMillis();
+        this.windows = new AtomicReferenceArray<>(windowCount);
+        for (int i = 0; i < windowCount; i++) {
+            windows.set(i, new Window(Long.MIN_VALUE));
+        }
+    }
+
+    public void record(Order order) {
+        record(order, clock.instant());
+    }
+
+    // Comptabilise une commande finalisée à l'instant donné
+    public void record(Order order, Instant finalizedAt) {
+        if (!order.getShoppingCart().getCurrency().equals(currency)) {
+            throw new IllegalArgumentException("La devise doit être celle de l'agrégateur : " + currency);
+        }
+        ShoppingCart cart = order.getShoppingCart();
+        long total;
+        long orderUnits = 0;
+        // Total et lignes relevés ensemble sous le verrou du panier
+        synchronized (cart) {
+            total = order.getTotalAmount().getMinorUnits();
+            for (CartLine line : cart.getLines()) {
+                Product product = line.getProduct();
+                int quantity = line.getQuantity();
+                orderUnits += quantity;
+                if (product.getSku() != Product.NO_SKU) {
+                    SkuStats stats = skus.getOrCreate(product.getSku());
+                    stats.units.add(quantity);
+                    stats.revenue.add(Math.multiplyExact(product.getPriceAmount().getMinorUnits(), (long) quantity));
+                }
+            }
+        }
+        orders.increment();
+        revenue.add(total);
+        deliveryFees.add(order.getDeliveryFeeAmount().getMinorUnits());
+        discountBasisPoints.add(order.getDiscountBasisPoints());
+        units.add(orderUnits);
+
+        Window window = window(Math.floorDiv(finalizedAt.toEpochMilli(), windowMillis));
+        if (window != null) {
+            window.orders.increment();
+            window.revenue.add(total);
+            window.units.add(orderUnits);
+        }
+    }
+
+    public long getOrderCount() {
+        return orders.sum();
+    }
+
+    public Money getRevenue() {
+        return Money.ofMinor(revenue.sum(), currency);
+    }
+
+    public Money getDeliveryFees() {
+        return Money.ofMinor(deliveryFees.sum(), currency);
+    }
+
+    public long getUnitsSold() {
+        return units.sum();
+    }
+
+    // Remise moyenne par commande, en pourcentage
+    public double getAverageDiscount() {
+        long count = orders.sum();
+        return count == 0 ? 0.0 : discountBasisPoints.sum() / 100.0 / count;
+    }
+
+    public Money getAverageOrderValue() {
+        long count = orders.sum();
+        return Money.ofMinor(count == 0 ? 0 : Math.round((double) revenue.sum() / count), currency);
+    }
+
+    public long getUnitsSold(int sku) {
+        SkuStats stats = skus.get(sku);
+        return stats == null ? 0 : stats.units.sum();
+    }
+
+    // Chiffre d'affaires brut du produit, au prix catalogue, avant remises de la commande
+    public Money getRevenue(int sku) {
+        SkuStats stats = skus.get(sku);
+        return Money.ofMinor(stats == null ? 0 : stats.revenue.sum(), currency);
+    }
+
+    // Chiffre d'affaires des n dernières fenêtres, fenêtre en cours comprise
+    public Money getRecentRevenue(int windowCount) {
+        return Money.ofMinor(recentSum(windowCount, window -> window.revenue), currency);
+    }
+
+    public long getRecentOrderCount(int windowCount) {
+        return recentSum(windowCount, window -> window.orders);
+    }
+
+    public long getRecentUnitsSold(int windowCount) {
+        return recentSum(windowCount, window -> window.units);
+    }
+
+    private long recentSum(int windowCount, Function<Window, LongAdder> counter) {
+        long sum = 0;
+        long current = currentWindow();
+        for (int i = 0; i < Math.min(windowCount, windows.length()); i++) {
+            Window window = windows.get(slot(current - i));
+            if (window.number == current - i) {
+                sum += counter.apply(window).sum();
+            }
+        }
+        return sum;
+    }
+
+    private long currentWindow() {
+        return Math.floorDiv(clock.millis(), windowMillis);
+    }
+
+    // Fenêtre de ce numéro, recyclée si l'emplacement porte une fenêtre plus ancienne ;
+    // null pour un numéro déjà sorti de l'anneau
+    private Window window(long number) {
+        int slot = slot(number);
+        while (true) {
+            Window window = windows.get(slot);
+            if (window.number == number) {
+                return window;
+            }
+            if (window.number > number) {
+                return null;
+            }
+            Window fresh = new Window(number);
+            if (windows.compareAndSet(slot, window, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private int slot(long number) {
+        return (int) Math.floorMod(number, (long) windows.length());
+    }
+
+    private static final class SkuStats {
+        final LongAdder units = new LongAdder();
+        final LongAdder revenue = new LongAdder();
+    }
+
+    private static final class Window {
+        final long number;
+        final LongAdder orders = new LongAdder();
+        final LongAdder revenue = new LongAdder();
+        final LongAdder units = new LongAdder();
+
+        Window(long number) {
+            this.number = number;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package fr.ekod.cache;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.ref.WeakReference;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import fr.ekod.Invoice;
+import fr.ekod.Order;
+
+// Cache des factures rendues, indexé par identifiant de commande et validé par l'instance et la version
+// de la commande : toute modification de la commande ou de son panier change la version, et l'entrée
+// n'est plus servie. L'instance est comparée aussi, car deux commandes distinctes peuvent porter le même
+// identifiant (reprise, décodage, remplacement dans le référentiel) et des versions égales.
+// Les factures sont gardées encodées en UTF-8 (un octet par caractère pour l'essentiel du texte, contre
+// deux pour un String UTF-16 non compacté). Le poids total est borné ; les segments, chacun avec sa part
+// du budget et son propre verrou, évincent leurs entrées les moins récemment lues.
+// Le rendu se fait hors verrou : deux lectures simultanées d'une facture absente la rendent deux fois.
+public class InvoiceCache {
+    // Coût approximatif d'une entrée hors corps : nœud de la table, clé, entrée, référence faible
+    // et en-tête du tableau
+    static final int ENTRY_OVERHEAD = 128;
+
+    private static final int INITIAL_BUFFER_SIZE = 4 * 1024;
+    // Au-delà, le buffer agrandi sert à un seul rendu et n'est pas conservé par le thread
+    static final int MAX_SCRATCH_SIZE = 256 * 1024;
+
+    // Buffer de rendu réutilisé par thread, agrandi si une facture ne tient pas
+    private static final ThreadLocal<ByteBuffer> SCRATCH =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(INITIAL_BUFFER_SIZE));
+
+    private final Segment[] segments;
+    private final int mask;
+    private final long maxWeight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public InvoiceCache(long maxWeightBytes) {
+        this(maxWeightBytes, Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    // Le nombre de segments est arrondi à la puissance de deux supérieure
+    public InvoiceCache(long maxWeightBytes, int segmentCount) {
+        if (maxWeightBytes <= 0) {
+            throw new IllegalArgumentException("Le poids maximal doit être strictement positif");
+        }
+        if (segmentCount <= 0) {
+            throw new IllegalArgumentException("Le nombre de segments doit être positif");
+        }
+        int size = Integer.highestOneBit(segmentCount);
+        if (size < segmentCount) {
+            size <<= 1;
+        }
+        this.segments = new Segment[size];
+        for (int i = 0; i < size; i++) {
+            segments[i] = new Segment(maxWeightBytes / size + (i < maxWeightBytes % size ? 1 : 0));
+        }
+        this.mask = size - 1;
+        this.maxWeight = maxWeightBytes;
+    }
+
+    // Facture de la commande en lecture seule, sans copie du corps en cache
+    public ByteBuffer getBuffer(Order order) {
+        return ByteBuffer.wrap(body(order)).asReadOnlyBuffer();
+    }
+
+    public String getInvoice(Order order) {
+        return new String(body(order), StandardCharsets.UTF_8);
+    }
+
+    // Le flux n'est ni vidé ni fermé
+    public void writeTo(Order order, OutputStream stream) throws IOException {
+        stream.write(body(order));
+    }
+
+    private byte[] body(Order order) {
+        // Version lue avant le rendu : une modification concurrente rendra l'entrée aussitôt périmée
+        long version = order.getVersion();
+        Segment segment = segmentOf(order.getId());
+        synchronized (segment) {
+            Entry entry = segment.entries.get(order.getId());
+            if (entry != null && entry.version == version && entry.order.get() == order) {
+                hits.increment();
+                return entry.body;
+            }
+        }
+        misses.increment();
+        byte[] body = render(order);
+        segment.put(order.getId(), new Entry(order, version, body));
+        return body;
+    }
+
+    private static byte[] render(Order order) {
+        Invoice invoice = new Invoice(order);
+        ByteBuffer buffer = SCRATCH.get();
+        while (true) {
+            buffer.clear();
+            try {
+                invoice.writeTo(buffer);
+                break;
+            } catch (BufferOverflowException e) {
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+                if (buffer.capacity() <= MAX_SCRATCH_SIZE) {
+                    SCRATCH.set(buffer);
+                }
+            }
+        }
+        byte[] body = new byte[buffer.position()];
+        buffer.flip().get(body);
+        return body;
+    }
+
+    // Capacité du buffer de rendu conservé par le thread courant
+    static int scratchCapacity() {
+        return SCRATCH.get().capacity();
+    }
+
+    public void invalidate(long orderId) {
+        segmentOf(orderId).remove(orderId);
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.entries.clear();
+                segment.weight = 0;
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        return size;
+    }
+
+    // Poids total des entrées (corps UTF-8 plus surcoût forfaitaire par entrée)
+    public long getWeight() {
+        long weight = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                weight += segment.weight;
+            }
+        }
+        return weight;
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private Segment segmentOf(long orderId) {
+        long h = orderId * 0x9E3779B97F4A7C15L;
+        return segments[(int) (h >>> 32) & mask];
+    }
+
+    private static final class Entry {
+        // Référence faible : le cache ne retient pas la commande ni son panier
+        final WeakReference<Order> order;
+        final long version;
+        final byte[] body;
+
+        Entry(Order order, long version, byte[] body) {
+            this.order = new WeakReference<>(order);
+            this.version = version;
+            this.body = body;
+        }
+
+        long weight() {
+            return body.length + ENTRY_OVERHEAD;
+        }
+    }
+
+    private final class Segment {
+        final long maxWeight;
+        // Ordre d'accès : la première entrée est la moins récemment lue
+        final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        long weight;
+
+        Segment(long maxWeight) {
+            this.maxWeight = maxWeight;
+        }
+
+        synchronized void put(long orderId, Entry entry) {
+            Entry previous = entries.get(orderId);
+            if (previous != null) {
+                // Un rendu plus ancien de la même commande, terminé après celui-ci, ne doit pas le remplacer
+                if (previous.order.get() == entry.order.get() && previous.version > entry.version) {
+                    return;
+                }
+                entries.remove(orderId);
+                weight -= previous.weight();
+            }
+            // Une facture plus lourde que le segment entier n'est pas mise en cache
+            if (entry.weight() > maxWeight) {
+                return;
+            }
+            entries.put(orderId, entry);
+            weight += entry.weight();
+            Iterator<Map.Entry<Long, Entry>> eldest = entries.entrySet().iterator();
+            while (weight > maxWeight) {
+                Entry evicted = eldest.next().getValue();
+                eldest.remove();
+                weight -= evicted.weight();
+                evictions.increment();
+            }
+        }
+
+        synchronized void remove(long orderId) {
+            Entry previous = entries.remove(orderId);
+            if (previous != null) {
+                weight -= previous.weight();
+            }
+        }
+    }
+}
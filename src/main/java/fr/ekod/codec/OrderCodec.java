@@ -0,0 +1,187 @@
+package fr.ekod.codec;
+
+import java.nio.ByteBuffer;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Map;
+
+import fr.ekod.CartLine;
+import fr.ekod.Money;
+import fr.ekod.Order;
+import fr.ekod.Product;
+import fr.ekod.ProductCatalog;
+import fr.ekod.ShoppingCart;
+import fr.ekod.exceptions.OutOfStockException;
+
+// Codec binaire compact d'une commande et de son panier :
+//   version (byte)
+//   id commande | id panier | code numérique ISO 4217 de la devise | remise en points de base (varint)
+//   frais de livraison en unités mineures (varint zig-zag)
+//   nombre de lignes (varint) puis pour chaque ligne : sku | quantité (varint) | prix unitaire (varint zig-zag)
+// Les montants sont en virgule fixe (unités mineures) ; la remise est transmise au centième de pourcent.
+public final class OrderCodec {
+    public static final byte VERSION = 1;
+
+    // Devises indexées par code numérique ISO 4217, construites une seule fois
+    private static final Map<Integer, Currency> CURRENCIES = new HashMap<>();
+
+    static {
+        for (Currency currency : Currency.getAvailableCurrencies()) {
+            if (currency.getNumericCode() > 0) {
+                CURRENCIES.putIfAbsent(currency.getNumericCode(), currency);
+            }
+        }
+        CURRENCIES.put(Money.EUR.getNumericCode(), Money.EUR);
+    }
+
+    private OrderCodec() {
+    }
+
+    // Taille exacte de l'encodage, pour dimensionner le buffer ; le panier ne doit pas changer
+    // entre encodedSize et encode (appels à faire sous synchronized (panier) s'il est partagé)
+    public static int encodedSize(Order order) {
+        ShoppingCart cart = order.getShoppingCart();
+        synchronized (cart) {
+            return sizeOf(order, cart);
+        }
+    }
+
+    private static int sizeOf(Order order, ShoppingCart cart) {
+        int size = 1
+                + Varint.sizeOfUnsigned(order.getId())
+                + Varint.sizeOfUnsigned(cart.getId())
+                + Varint.sizeOfUnsigned(cart.getCurrency().getNumericCode())
+                + Varint.sizeOfUnsigned(order.getDiscountBasisPoints())
+                + Varint.sizeOfSigned(order.getDeliveryFeeAmount().getMinorUnits())
+                + Varint.sizeOfUnsigned(cart.getNumberOfLines());
+        for (CartLine line : cart.getLines()) {
+            Product product = line.getProduct();
+            size += Varint.sizeOfUnsigned(sku(product))
+                    + Varint.sizeOfUnsigned(line.getQuantity())
+                    + Varint.sizeOfSigned(product.getPriceAmount().getMinorUnits());
+        }
+        return size;
+    }
+
+    // Encode à la position courante du buffer (BufferOverflowException si la place manque)
+    public static void encode(Order order, ByteBuffer buffer) {
+        ShoppingCart cart = order.getShoppingCart();
+        synchronized (cart) {
+            encode(order, cart, buffer);
+        }
+    }
+
+    private static void encode(Order order, ShoppingCart cart, ByteBuffer buffer) {
+        buffer.put(VERSION);
+        Varint.putUnsigned(buffer, order.getId());
+        Varint.putUnsigned(buffer, cart.getId());
+        Varint.putUnsigned(buffer, cart.getCurrency().getNumericCode());
+        Varint.putUnsigned(buffer, order.getDiscountBasisPoints());
+        Varint.putSigned(buffer, order.getDeliveryFeeAmount().getMinorUnits());
+        Varint.putUnsigned(buffer, cart.getNumberOfLines());
+        for (CartLine line : cart.getLines()) {
+            Product product = line.getProduct();
+            Varint.putUnsigned(buffer, sku(product));
+            Varint.putUnsigned(buffer, line.getQuantity());
+            Varint.putSigned(buffer, product.getPriceAmount().getMinorUnits());
+        }
+    }
+
+    // Décode une commande à la position courante du buffer et la transmet au visiteur
+    public static void decode(ByteBuffer buffer, OrderVisitor visitor) {
+        byte version = buffer.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Version de format non supportée : " + version);
+        }
+        long orderId = Varint.getUnsigned(buffer);
+        long cartId = Varint.getUnsigned(buffer);
+        Currency currency = currency(Varint.getUnsignedInt(buffer));
+        long discountBasisPoints = Varint.getUnsigned(buffer);
+        long deliveryFee = Varint.getSigned(buffer);
+        visitor.order(orderId, cartId, currency, deliveryFee, discountBasisPoints);
+        int lines = Varint.getUnsignedInt(buffer);
+        for (int i = 0; i < lines; i++) {
+            int sku = Varint.getUnsignedInt(buffer);
+            int quantity = Varint.getUnsignedInt(buffer);
+            visitor.line(sku, quantity, Varint.getSigned(buffer));
+        }
+    }
+
+    // Recrée la commande et son panier à partir du catalogue local, avec deux effets de bord :
+    // - le stock des lignes est réservé dans le catalogue, comme par addProduct ;
+    // - les identifiants décodés sont repris tels quels, et les compteurs globaux de ShoppingCart et
+    //   Order passent au-delà : les identifiants attribués ensuite automatiquement leur seront supérieurs.
+    // Le prix unitaire transmis doit être celui du catalogue : une commande encodée avant un changement
+    // de prix est refusée (IllegalArgumentException) plutôt que décodée avec un autre total.
+    // En cas d'échec (rupture, buffer tronqué, SKU inconnu, prix différent, devise ou quantité
+    // invalide...), les réservations déjà faites sont rendues avant de propager l'erreur.
+    public static Order decode(ByteBuffer buffer, ProductCatalog catalog) throws OutOfStockException {
+        OrderBuilder builder = new OrderBuilder(catalog);
+        try {
+            decode(buffer, builder);
+            if (builder.failure != null) {
+                throw builder.failure;
+            }
+        } catch (RuntimeException | OutOfStockException e) {
+            if (builder.cart != null) {
+                builder.cart.clear();
+            }
+            throw e;
+        }
+        return builder.order;
+    }
+
+    private static int sku(Product product) {
+        if (product.getSku() == Product.NO_SKU) {
+            throw new IllegalArgumentException("Seuls les produits du catalogue peuvent être encodés : "
+                    + product.getName());
+        }
+        return product.getSku();
+    }
+
+    private static Currency currency(int numericCode) {
+        Currency currency = CURRENCIES.get(numericCode);
+        if (currency == null) {
+            throw new IllegalArgumentException("Devise inconnue : " + numericCode);
+        }
+        return currency;
+    }
+
+    private static final class OrderBuilder implements OrderVisitor {
+        private final ProductCatalog catalog;
+        private ShoppingCart cart;
+        private Order order;
+        private OutOfStockException failure;
+
+        OrderBuilder(ProductCatalog catalog) {
+            this.catalog = catalog;
+        }
+
+        @Override
+        public void order(long orderId, long cartId, Currency currency, long deliveryFee, long discountBasisPoints) {
+            cart = new ShoppingCart(cartId, currency);
+            order = new Order(orderId, cart, Money.ofMinor(deliveryFee, currency));
+            if (discountBasisPoints > 0) {
+                order.setDiscount(discountBasisPoints / 100.0);
+            }
+        }
+
+        @Override
+        public void line(int sku, int quantity, long unitPrice) {
+            if (failure != null) {
+                return;
+            }
+            Product product = catalog.get(sku);
+            long price = product.getPriceAmount().getMinorUnits();
+            if (price != unitPrice) {
+                throw new IllegalArgumentException("Prix de " + product.getName() + " différent du catalogue : "
+                        + unitPrice + " au lieu de " + price);
+            }
+            try {
+                cart.addProduct(product, quantity);
+            } catch (OutOfStockException e) {
+                failure = e;
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package fr.ekod.codec;
+
+import java.util.Currency;
+
+// Reçoit le contenu d'une commande décodée, champ par champ, sans objet intermédiaire
+public interface OrderVisitor {
+
+    void order(long orderId, long cartId, Currency currency, long deliveryFeeMinorUnits, long discountBasisPoints);
+
+    void line(int sku, int quantity, long unitPriceMinorUnits);
+}
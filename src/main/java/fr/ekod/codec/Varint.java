@@ -0,0 +1,60 @@
+package fr.ekod.codec;
+
+import java.nio.ByteBuffer;
+
+// Entiers à longueur variable (LEB128) : 7 bits par octet, bit de poids fort = octet suivant.
+// Les valeurs signées passent par le codage zig-zag pour que les petits négatifs restent courts.
+final class Varint {
+    private Varint() {
+    }
+
+    static void putUnsigned(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static long getUnsigned(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Entier variable trop long");
+    }
+
+    static void putSigned(ByteBuffer buffer, long value) {
+        putUnsigned(buffer, (value << 1) ^ (value >> 63));
+    }
+
+    static long getSigned(ByteBuffer buffer) {
+        long encoded = getUnsigned(buffer);
+        return (encoded >>> 1) ^ -(encoded & 1);
+    }
+
+    static int getUnsignedInt(ByteBuffer buffer) {
+        long value = getUnsigned(buffer);
+        if (value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Valeur hors limites : " + value);
+        }
+        return (int) value;
+    }
+
+    static int sizeOfUnsigned(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    static int sizeOfSigned(long value) {
+        return sizeOfUnsigned((value << 1) ^ (value >> 63));
+    }
+}
@@ -0,0 +1,54 @@
+package fr.ekod.concurrent;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+// Table indexée par SKU dont les éléments sont créés au premier usage.
+// Les lectures se font sans verrou ; créations et agrandissements sont sérialisés par un verrou interne,
+// le tableau agrandi n'étant publié qu'une fois rempli. Un SKU négatif (Product.NO_SKU) n'a jamais d'élément.
+public final class SkuTable<T> {
+    private final Supplier<T> factory;
+    private final Object growLock = new Object();
+    private volatile AtomicReferenceArray<T> elements;
+
+    public SkuTable(int initialCapacity, Supplier<T> factory) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("La capacité initiale doit être strictement positive");
+        }
+        this.factory = factory;
+        this.elements = new AtomicReferenceArray<>(initialCapacity);
+    }
+
+    // Élément du SKU, ou null s'il n'a pas encore été créé
+    public T get(int sku) {
+        AtomicReferenceArray<T> current = elements;
+        return sku >= 0 && sku < current.length() ? current.get(sku) : null;
+    }
+
+    public T getOrCreate(int sku) {
+        if (sku < 0) {
+            throw new IllegalArgumentException("SKU invalide : " + sku);
+        }
+        T element = get(sku);
+        if (element != null) {
+            return element;
+        }
+        synchronized (growLock) {
+            AtomicReferenceArray<T> current = elements;
+            if (sku >= current.length()) {
+                AtomicReferenceArray<T> grown = new AtomicReferenceArray<>(Math.max(sku + 1, current.length() * 2));
+                for (int i = 0; i < current.length(); i++) {
+                    grown.set(i, current.get(i));
+                }
+                elements = grown;
+                current = grown;
+            }
+            element = current.get(sku);
+            if (element == null) {
+                element = factory.get();
+                current.set(sku, element);
+            }
+            return element;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package fr.ekod.concurrent;
+
+// Répartition des threads entre plusieurs compteurs (bandes), pour qu'ils ne se disputent pas
+// une même ligne de cache
+public final class Stripes {
+
+    private Stripes() {
+    }
+
+    // Nombre de bandes : puissance de 2 comprise entre deux et quatre fois le nombre de processeurs
+    public static int count() {
+        return Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1) << 1;
+    }
+
+    // Valeur stable pour un thread donné, bien répartie entre threads ; à masquer par (bandes - 1)
+    public static int probe() {
+        long id = Thread.currentThread().getId();
+        int h = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,38 @@
+package fr.ekod.events;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import fr.ekod.Product;
+import fr.ekod.ShoppingCart;
+
+// Modifications d'un panier regroupées sur un lot : variation nette de quantité par produit
+public final class CartChange {
+    private final ShoppingCart cart;
+    private final Map<Product, Integer> quantityChanges = new LinkedHashMap<>();
+    private int eventCount;
+
+    CartChange(ShoppingCart cart) {
+        this.cart = cart;
+    }
+
+    void add(Product product, int delta) {
+        quantityChanges.merge(product, delta, (a, b) -> a + b == 0 ? null : a + b);
+        eventCount++;
+    }
+
+    public ShoppingCart getCart() {
+        return cart;
+    }
+
+    // Produits dont la quantité a varié, dans l'ordre de première modification ; les allers-retours s'annulent
+    public Map<Product, Integer> getQuantityChanges() {
+        return Collections.unmodifiableMap(quantityChanges);
+    }
+
+    // Nombre de modifications individuelles regroupées dans ce changement
+    public int getEventCount() {
+        return eventCount;
+    }
+}
@@ -0,0 +1,10 @@
+package fr.ekod.events;
+
+import java.util.List;
+
+// Abonné au bus : reçoit un lot de changements, au plus un par panier
+@FunctionalInterface
+public interface CartChangeListener {
+
+    void onChanges(List<CartChange> changes);
+}
@@ -0,0 +1,201 @@
+package fr.ekod.events;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import fr.ekod.Product;
+import fr.ekod.ShoppingCart;
+
+// Bus de changements des paniers, partagé par plusieurs paniers et plusieurs abonnés.
+// publish() ne fait qu'ajouter l'événement dans des tableaux en attente ; les événements sont
+// regroupés par panier et par produit puis livrés par lots, soit sur un exécuteur dédié
+// (mode asynchrone), soit lors d'un appel explicite à flush() (mode synchrone).
+public class CartEventBus {
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final Executor executor;
+    private final List<CartChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final Object lock = new Object();
+    // Événements en attente, en colonnes ; échangés avec les tableaux de livraison à chaque lot
+    private ShoppingCart[] carts = new ShoppingCart[INITIAL_CAPACITY];
+    private Product[] products = new Product[INITIAL_CAPACITY];
+    private int[] deltas = new int[INITIAL_CAPACITY];
+    private int pending;
+    private ShoppingCart[] spareCarts = new ShoppingCart[INITIAL_CAPACITY];
+    private Product[] spareProducts = new Product[INITIAL_CAPACITY];
+    private int[] spareDeltas = new int[INITIAL_CAPACITY];
+    private boolean scheduled;
+
+    // Une seule livraison à la fois, pour que les lots arrivent dans l'ordre
+    private final Object deliveryLock = new Object();
+    private final Runnable drain = this::drain;
+    private final AtomicLong rejections = new AtomicLong();
+
+    // Mode synchrone : les lots sont livrés par flush()
+    public CartEventBus() {
+        this(null);
+    }
+
+    // Mode asynchrone : un lot est livré sur l'exécuteur dès que des événements sont en attente
+    public CartEventBus(Executor executor) {
+        this.executor = executor;
+    }
+
+    public void subscribe(CartChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public boolean unsubscribe(CartChangeListener listener) {
+        return listeners.remove(listener);
+    }
+
+    public boolean isAsynchronous() {
+        return executor != null;
+    }
+
+    public int getPendingCount() {
+        synchronized (lock) {
+            return pending;
+        }
+    }
+
+    // Variation de quantité d'un produit dans un panier (positive à l'ajout, négative au retrait)
+    public void publish(ShoppingCart cart, Product product, int delta) {
+        boolean schedule = false;
+        synchronized (lock) {
+            if (pending == carts.length) {
+                int capacity = carts.length * 2;
+                carts = Arrays.copyOf(carts, capacity);
+                products = Arrays.copyOf(products, capacity);
+                deltas = Arrays.copyOf(deltas, capacity);
+            }
+            carts[pending] = cart;
+            products[pending] = product;
+            deltas[pending] = delta;
+            pending++;
+            if (executor != null && !scheduled) {
+                scheduled = true;
+                schedule = true;
+            }
+        }
+        if (schedule) {
+            schedule();
+        }
+    }
+
+    // Appelé depuis la modification du panier : un refus de l'exécuteur (arrêté ou saturé) ne doit pas
+    // remonter à l'appelant, dont la modification est déjà appliquée. Les événements restent en attente,
+    // livrés au prochain publish() accepté ou par flush().
+    private void schedule() {
+        try {
+            executor.execute(drain);
+        } catch (RejectedExecutionException e) {
+            synchronized (lock) {
+                scheduled = false;
+            }
+            rejections.incrementAndGet();
+        }
+    }
+
+    // Nombre de livraisons refusées par l'exécuteur
+    public long getRejectedCount() {
+        return rejections.get();
+    }
+
+    // Point de validation : livre immédiatement les événements en attente, renvoie leur nombre
+    public int flush() {
+        synchronized (deliveryLock) {
+            ShoppingCart[] batchCarts;
+            Product[] batchProducts;
+            int[] batchDeltas;
+            int size;
+            synchronized (lock) {
+                size = pending;
+                if (size == 0) {
+                    return 0;
+                }
+                batchCarts = carts;
+                batchProducts = products;
+                batchDeltas = deltas;
+                carts = ensureCapacity(spareCarts, batchCarts.length);
+                products = ensureCapacity(spareProducts, batchProducts.length);
+                deltas = spareDeltas.length >= batchDeltas.length ? spareDeltas : new int[batchDeltas.length];
+                pending = 0;
+            }
+            try {
+                deliver(coalesce(batchCarts, batchProducts, batchDeltas, size));
+            } finally {
+                Arrays.fill(batchCarts, 0, size, null);
+                Arrays.fill(batchProducts, 0, size, null);
+                synchronized (lock) {
+                    spareCarts = batchCarts;
+                    spareProducts = batchProducts;
+                    spareDeltas = batchDeltas;
+                }
+            }
+            return size;
+        }
+    }
+
+    private void drain() {
+        try {
+            flush();
+        } finally {
+            boolean reschedule;
+            synchronized (lock) {
+                reschedule = pending > 0;
+                scheduled = reschedule;
+            }
+            if (reschedule) {
+                schedule();
+            }
+        }
+    }
+
+    private static List<CartChange> coalesce(ShoppingCart[] carts, Product[] products, int[] deltas, int size) {
+        Map<ShoppingCart, CartChange> byCart = new IdentityHashMap<>();
+        List<CartChange> changes = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            CartChange change = byCart.get(carts[i]);
+            if (change == null) {
+                change = new CartChange(carts[i]);
+                byCart.put(carts[i], change);
+                changes.add(change);
+            }
+            change.add(products[i], deltas[i]);
+        }
+        return Collections.unmodifiableList(changes);
+    }
+
+    // Chaque abonné reçoit le lot même si un autre échoue ; la première erreur est relancée
+    private void deliver(List<CartChange> changes) {
+        RuntimeException failure = null;
+        for (CartChangeListener listener : listeners) {
+            try {
+                listener.onChanges(changes);
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static <T> T[] ensureCapacity(T[] spare, int capacity) {
+        return spare.length >= capacity ? spare : Arrays.copyOf(spare, capacity);
+    }
+}
@@ -0,0 +1,188 @@
+package fr.ekod.expiry;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import fr.ekod.ShoppingCart;
+
+// Expiration des paniers abandonnés : un panier suivi dont rien n'a changé pendant la durée de
+// réservation est vidé, ce qui restitue son stock. Une seule entrée de roue temporelle par panier,
+// planifiée au suivi ; les modifications du panier ne touchent pas la roue (simple horodatage),
+// l'échéance est vérifiée puis replanifiée paresseusement quand elle arrive.
+public class CartExpiryScheduler implements Closeable {
+    private final long ttlNanos;
+    private final long tickNanos;
+    private final long originNanos;
+    private final TimingWheel<ShoppingCart> wheel;
+    private final ConcurrentHashMap<ShoppingCart, TimingWheel.Node<ShoppingCart>> tracked = new ConcurrentHashMap<>();
+    private final AtomicLong expiredCount = new AtomicLong();
+    private volatile Consumer<ShoppingCart> expiryListener;
+    private ScheduledExecutorService executor;
+    private volatile RuntimeException lastFailure;
+
+    // Précision d'expiration d'un soixante-quatrième de la durée de réservation
+    public CartExpiryScheduler(Duration ttl) {
+        this(ttl, ttl.dividedBy(64).isZero() ? Duration.ofMillis(1) : ttl.dividedBy(64));
+    }
+
+    public CartExpiryScheduler(Duration ttl, Duration tick) {
+        if (ttl.isNegative() || ttl.isZero() || tick.isNegative() || tick.isZero()) {
+            throw new IllegalArgumentException("La durée de réservation et le tick doivent être positifs");
+        }
+        this.ttlNanos = ttl.toNanos();
+        this.tickNanos = tick.toNanos();
+        this.originNanos = System.nanoTime();
+        this.wheel = new TimingWheel<>(0);
+    }
+
+    // Appelé après qu'un panier a été vidé par expiration
+    public void setExpiryListener(Consumer<ShoppingCart> listener) {
+        this.expiryListener = listener;
+    }
+
+    // Verrous pris dans l'ordre panier puis roue, comme lors de l'expiration
+    public void track(ShoppingCart cart) {
+        synchronized (cart) {
+            synchronized (wheel) {
+                TimingWheel.Node<ShoppingCart> previous = tracked.get(cart);
+                if (previous != null) {
+                    wheel.cancel(previous);
+                }
+                tracked.put(cart, wheel.schedule(cart, deadlineTick(cart.getLastModifiedNanos())));
+            }
+        }
+    }
+
+    // Le panier n'expire plus, par exemple une fois la commande payée
+    public boolean untrack(ShoppingCart cart) {
+        synchronized (cart) {
+            synchronized (wheel) {
+                TimingWheel.Node<ShoppingCart> node = tracked.remove(cart);
+                return node != null && wheel.cancel(node);
+            }
+        }
+    }
+
+    public boolean isTracked(ShoppingCart cart) {
+        return tracked.containsKey(cart);
+    }
+
+    public int getTrackedCount() {
+        return tracked.size();
+    }
+
+    public long getExpiredCount() {
+        return expiredCount.get();
+    }
+
+    public int expireDue() {
+        return expireDue(System.nanoTime());
+    }
+
+    // Traite les échéances jusqu'à l'instant donné (System.nanoTime), renvoie le nombre de paniers vidés
+    public int expireDue(long nowNanos) {
+        List<ShoppingCart> due = new ArrayList<>();
+        synchronized (wheel) {
+            wheel.advanceTo(Math.max(wheel.getCurrentTick(), (nowNanos - originNanos) / tickNanos), due);
+        }
+        // Le vidage (journal, restitution du stock) se fait sous le seul verrou du panier
+        int expired = 0;
+        RuntimeException failure = null;
+        for (ShoppingCart cart : due) {
+            boolean cleared;
+            synchronized (cart) {
+                synchronized (wheel) {
+                    if (tracked.remove(cart) == null) {
+                        // Retiré du suivi entre-temps
+                        continue;
+                    }
+                }
+                try {
+                    cleared = cart.clearIfUnchangedSince(nowNanos - ttlNanos);
+                } catch (RuntimeException e) {
+                    // Nouvel essai à l'échéance suivante
+                    cleared = false;
+                    if (failure == null) {
+                        failure = e;
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+                if (!cleared) {
+                    // Modifié entre-temps : nouvelle échéance à partir de la dernière modification
+                    synchronized (wheel) {
+                        tracked.put(cart, wheel.schedule(cart, deadlineTick(cart.getLastModifiedNanos())));
+                    }
+                }
+            }
+            if (cleared) {
+                expired++;
+                expiredCount.incrementAndGet();
+                Consumer<ShoppingCart> listener = expiryListener;
+                if (listener != null) {
+                    try {
+                        listener.accept(cart);
+                    } catch (RuntimeException e) {
+                        if (failure == null) {
+                            failure = e;
+                        } else {
+                            failure.addSuppressed(e);
+                        }
+                    }
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return expired;
+    }
+
+    // Dernière erreur rencontrée par la tâche de fond, qui continue malgré tout
+    public RuntimeException getLastFailure() {
+        return lastFailure;
+    }
+
+    private void expireInBackground() {
+        try {
+            expireDue();
+        } catch (RuntimeException e) {
+            lastFailure = e;
+        }
+    }
+
+    // Traitement des échéances en tâche de fond, à chaque tick
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "cart-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(this::expireInBackground, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    // Arrondi au tick supérieur : un panier n'expire jamais avant la fin de sa réservation
+    private long deadlineTick(long lastModifiedNanos) {
+        long deadline = lastModifiedNanos + ttlNanos - originNanos;
+        return Math.floorDiv(deadline + tickNanos - 1, tickNanos);
+    }
+}
@@ -0,0 +1,127 @@
+package fr.ekod.expiry;
+
+import java.util.List;
+
+// Roue temporelle hiérarchique : 4 niveaux de 64 cases, soit 2^24 ticks adressables.
+// Planifier et annuler coûtent O(1) ; chaque tick ne visite qu'une case du premier niveau, et
+// les niveaux supérieurs ne sont redescendus (cascade) qu'une fois tous les 64, 64^2, 64^3 ticks.
+// Les échéances sont des numéros de tick. Non thread-safe : l'appelant synchronise.
+final class TimingWheel<T> {
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    // Case = liste doublement chaînée circulaire avec une sentinelle
+    private final Node<T>[][] wheels;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    TimingWheel(long startTick) {
+        this.currentTick = startTick;
+        this.wheels = new Node[LEVELS][SLOTS];
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                Node<T> sentinel = new Node<>(null, 0);
+                sentinel.prev = sentinel;
+                sentinel.next = sentinel;
+                wheels[level][slot] = sentinel;
+            }
+        }
+    }
+
+    long getCurrentTick() {
+        return currentTick;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Une échéance déjà passée se déclenche au prochain tick
+    Node<T> schedule(T value, long deadlineTick) {
+        Node<T> node = new Node<>(value, deadlineTick);
+        insert(node, currentTick + 1);
+        size++;
+        return node;
+    }
+
+    boolean cancel(Node<T> node) {
+        if (node.next == null) {
+            return false;
+        }
+        unlink(node);
+        size--;
+        return true;
+    }
+
+    // Avance jusqu'au tick donné et ajoute les valeurs échues à la liste
+    void advanceTo(long tick, List<T> expired) {
+        while (currentTick < tick) {
+            long t = ++currentTick;
+            // Cascade des niveaux supérieurs lorsque le niveau inférieur a fait un tour complet
+            for (int level = 1; level < LEVELS && (t & ((1L << (BITS * level)) - 1)) == 0; level++) {
+                Node<T> sentinel = wheels[level][(int) (t >>> (BITS * level)) & MASK];
+                Node<T> node = sentinel.next;
+                sentinel.next = sentinel;
+                sentinel.prev = sentinel;
+                while (node != sentinel) {
+                    Node<T> next = node.next;
+                    // Une échéance égale au tick courant tombe dans la case traitée juste après
+                    insert(node, t);
+                    node = next;
+                }
+            }
+            Node<T> sentinel = wheels[0][(int) t & MASK];
+            Node<T> node = sentinel.next;
+            sentinel.next = sentinel;
+            sentinel.prev = sentinel;
+            while (node != sentinel) {
+                Node<T> next = node.next;
+                node.next = null;
+                node.prev = null;
+                size--;
+                expired.add(node.value);
+                node = next;
+            }
+        }
+    }
+
+    private void insert(Node<T> node, long earliest) {
+        long deadline = Math.max(node.deadline, earliest);
+        long delta = deadline - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (BITS * (level + 1))) {
+            level++;
+        }
+        if (level == LEVELS - 1 && delta >= 1L << (BITS * LEVELS)) {
+            // Au-delà de l'horizon : rangé dans la dernière case atteignable, replanifié en cascade
+            deadline = currentTick + (1L << (BITS * LEVELS)) - 1;
+        }
+        Node<T> sentinel = wheels[level][(int) (deadline >>> (BITS * level)) & MASK];
+        node.prev = sentinel.prev;
+        node.next = sentinel;
+        sentinel.prev.next = node;
+        sentinel.prev = node;
+    }
+
+    private static <T> void unlink(Node<T> node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.next = null;
+        node.prev = null;
+    }
+
+    static final class Node<T> {
+        final T value;
+        final long deadline;
+        Node<T> prev;
+        Node<T> next;
+
+        Node(T value, long deadline) {
+            this.value = value;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package fr.ekod.inventory;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+// Stock en mémoire, rangé dans des pages de int primitifs.
+// L'ajout de pages ne déplace jamais les emplacements existants : les CAS concurrents restent valides.
+public class HeapStockStore implements StockStore {
+    private static final int PAGE_SHIFT = 14;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private volatile int[][] pages = new int[0][];
+    private volatile int size;
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized int allocate(int initialStock) {
+        int slot = size;
+        if ((slot >>> PAGE_SHIFT) == pages.length) {
+            int[][] grown = Arrays.copyOf(pages, pages.length + 1);
+            grown[pages.length] = new int[PAGE_SIZE];
+            pages = grown;
+        }
+        SLOTS.setVolatile(pages[slot >>> PAGE_SHIFT], slot & PAGE_MASK, initialStock);
+        size = slot + 1;
+        return slot;
+    }
+
+    @Override
+    public int get(int slot) {
+        return (int) SLOTS.getVolatile(page(slot), slot & PAGE_MASK);
+    }
+
+    @Override
+    public boolean tryReserve(int slot, int quantity) {
+        int[] page = page(slot);
+        int index = slot & PAGE_MASK;
+        int current;
+        do {
+            current = (int) SLOTS.getVolatile(page, index);
+            if (current < quantity) {
+                return false;
+            }
+        } while (!SLOTS.compareAndSet(page, index, current, current - quantity));
+        return true;
+    }
+
+    @Override
+    public void release(int slot, int quantity) {
+        SLOTS.getAndAdd(page(slot), slot & PAGE_MASK, quantity);
+    }
+
+    private int[] page(int slot) {
+        if (slot < 0 || slot >= size) {
+            throw new IllegalArgumentException("Emplacement de stock inconnu : " + slot);
+        }
+        return pages[slot >>> PAGE_SHIFT];
+    }
+}
@@ -0,0 +1,162 @@
+package fr.ekod.inventory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Stock persistant dans un fichier projeté en mémoire (FileChannel.map) : un int par SKU.
+// L'ouverture se contente de projeter le fichier, sans phase de chargement.
+// Chaque mise à jour est un CAS sur un int aligné, jamais déchiré : après un arrêt brutal du
+// processus, le fichier contient la dernière valeur écrite de chaque emplacement.
+//
+// Format (little-endian) : en-tête de 16 octets puis les emplacements
+//   magic (int) | version (int) | capacité (int) | nombre d'emplacements alloués (int) | stock[0] | stock[1] ...
+public class MappedStockStore implements StockStore, Closeable {
+    private static final int MAGIC = 0x454B5354; // "EKST"
+    private static final int VERSION = 1;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int SIZE_OFFSET = 12;
+    private static final int HEADER_SIZE = 16;
+    private static final int SLOT_SIZE = Integer.BYTES;
+
+    private static final VarHandle INTS =
+            MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+
+    private MappedStockStore(FileChannel channel, MappedByteBuffer buffer, int capacity) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = capacity;
+    }
+
+    // Ouvre le fichier existant (sa capacité d'origine est conservée) ou le crée avec la capacité donnée
+    public static MappedStockStore open(Path file, int capacity) throws IOException {
+        if (capacity <= 0 || capacity > (Integer.MAX_VALUE - HEADER_SIZE) / SLOT_SIZE) {
+            throw new IllegalArgumentException("Capacité invalide : " + capacity);
+        }
+        boolean exists = Files.exists(file) && Files.size(file) > 0;
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (exists) {
+                return openExisting(channel, file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    HEADER_SIZE + (long) capacity * SLOT_SIZE);
+            INTS.setVolatile(buffer, VERSION_OFFSET, VERSION);
+            INTS.setVolatile(buffer, CAPACITY_OFFSET, capacity);
+            INTS.setVolatile(buffer, SIZE_OFFSET, 0);
+            buffer.force();
+            // Le nombre magique est écrit en dernier : un fichier sans lui n'a jamais été initialisé
+            INTS.setVolatile(buffer, MAGIC_OFFSET, MAGIC);
+            buffer.force();
+            return new MappedStockStore(channel, buffer, capacity);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static MappedStockStore openExisting(FileChannel channel, Path file) throws IOException {
+        if (channel.size() < HEADER_SIZE) {
+            throw new IOException("Fichier de stock tronqué : " + file);
+        }
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+        if ((int) INTS.get(header, MAGIC_OFFSET) != MAGIC) {
+            throw new IOException("Fichier de stock invalide : " + file);
+        }
+        if ((int) INTS.get(header, VERSION_OFFSET) != VERSION) {
+            throw new IOException("Version de fichier de stock non supportée : " + file);
+        }
+        int capacity = (int) INTS.get(header, CAPACITY_OFFSET);
+        long expectedSize = HEADER_SIZE + (long) capacity * SLOT_SIZE;
+        if (capacity <= 0 || channel.size() < expectedSize) {
+            throw new IOException("Fichier de stock tronqué : " + file);
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, expectedSize);
+        return new MappedStockStore(channel, buffer, capacity);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public int size() {
+        return (int) INTS.getVolatile(buffer, SIZE_OFFSET);
+    }
+
+    @Override
+    public synchronized int allocate(int initialStock) {
+        int slot = size();
+        if (slot == capacity) {
+            throw new IllegalStateException("Capacité du fichier de stock atteinte : " + capacity);
+        }
+        // L'emplacement est initialisé avant d'être compté comme alloué
+        INTS.setVolatile(buffer, offset(slot), initialStock);
+        INTS.setVolatile(buffer, SIZE_OFFSET, slot + 1);
+        return slot;
+    }
+
+    @Override
+    public int get(int slot) {
+        return (int) INTS.getVolatile(buffer, checkedOffset(slot));
+    }
+
+    @Override
+    public boolean tryReserve(int slot, int quantity) {
+        int offset = checkedOffset(slot);
+        int current;
+        do {
+            current = (int) INTS.getVolatile(buffer, offset);
+            if (current < quantity) {
+                return false;
+            }
+        } while (!INTS.compareAndSet(buffer, offset, current, current - quantity));
+        return true;
+    }
+
+    @Override
+    public void release(int slot, int quantity) {
+        INTS.getAndAdd(buffer, checkedOffset(slot), quantity);
+    }
+
+    @Override
+    public boolean isDurable() {
+        return true;
+    }
+
+    // Force l'écriture des pages modifiées sur le disque (protection contre une panne du système)
+    public void flush() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+
+    private int checkedOffset(int slot) {
+        if (slot < 0 || slot >= size()) {
+            throw new IllegalArgumentException("Emplacement de stock inconnu : " + slot);
+        }
+        return offset(slot);
+    }
+
+    private static int offset(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+}
@@ -0,0 +1,25 @@
+package fr.ekod.inventory;
+
+// Stockage des niveaux de stock, un emplacement (slot) par SKU.
+// Les implémentations garantissent des réservations atomiques sans verrou global.
+public interface StockStore {
+
+    // Nombre d'emplacements alloués
+    int size();
+
+    // Alloue un nouvel emplacement initialisé au stock donné et retourne son indice
+    int allocate(int initialStock);
+
+    int get(int slot);
+
+    // Réserve atomiquement la quantité : false si le stock est insuffisant, sans rien modifier
+    boolean tryReserve(int slot, int quantity);
+
+    void release(int slot, int quantity);
+
+    // Vrai si le stock survit au redémarrage du processus : il reflète alors déjà les réservations
+    // des paniers, que la reprise ne doit pas prélever une seconde fois
+    default boolean isDurable() {
+        return false;
+    }
+}
@@ -0,0 +1,127 @@
+package fr.ekod.metrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Métriques du parcours d'achat, toujours actives : latences des opérations du panier, de la commande
+// et de la facture, et compteurs de refus. Une seule instance, partagée par tout le processus,
+// exposée par JMX (registerMBeans) et sous forme de texte (writeTo, dump).
+public final class CheckoutMetrics implements CheckoutMetricsMBean {
+    public static final String DOMAIN = "fr.ekod";
+
+    private static final CheckoutMetrics INSTANCE = new CheckoutMetrics();
+
+    private final LatencyHistogram addProduct = new LatencyHistogram();
+    private final LatencyHistogram removeProduct = new LatencyHistogram();
+    private final LatencyHistogram calculateTotal = new LatencyHistogram();
+    private final LatencyHistogram generateInvoice = new LatencyHistogram();
+    private final LongAdder stockOutRejections = new LongAdder();
+    private final LongAdder discountRejections = new LongAdder();
+
+    // Noms et histogrammes dans l'ordre d'affichage
+    private final String[] names = {"addProduct", "removeProduct", "calculateTotal", "generateInvoice"};
+    private final LatencyHistogram[] histograms = {addProduct, removeProduct, calculateTotal, generateInvoice};
+
+    private CheckoutMetrics() {
+    }
+
+    public static CheckoutMetrics get() {
+        return INSTANCE;
+    }
+
+    public LatencyHistogram getAddProductLatency() {
+        return addProduct;
+    }
+
+    public LatencyHistogram getRemoveProductLatency() {
+        return removeProduct;
+    }
+
+    public LatencyHistogram getCalculateTotalLatency() {
+        return calculateTotal;
+    }
+
+    public LatencyHistogram getGenerateInvoiceLatency() {
+        return generateInvoice;
+    }
+
+    // Ajout refusé faute de stock
+    public void stockOutRejected() {
+        stockOutRejections.increment();
+    }
+
+    // Code promo refusé
+    public void discountRejected() {
+        discountRejections.increment();
+    }
+
+    @Override
+    public long getStockOutRejections() {
+        return stockOutRejections.sum();
+    }
+
+    @Override
+    public long getDiscountRejections() {
+        return discountRejections.sum();
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+        stockOutRejections.reset();
+        discountRejections.reset();
+    }
+
+    // Enregistre le MBean des compteurs et un MBean par histogramme sous le domaine fr.ekod
+    public void registerMBeans(MBeanServer server) throws JMException {
+        server.registerMBean(this, new ObjectName(DOMAIN + ":type=CheckoutMetrics"));
+        for (int i = 0; i < names.length; i++) {
+            server.registerMBean(histograms[i], latencyName(names[i]));
+        }
+    }
+
+    public void unregisterMBeans(MBeanServer server) throws JMException {
+        server.unregisterMBean(new ObjectName(DOMAIN + ":type=CheckoutMetrics"));
+        for (String name : names) {
+            server.unregisterMBean(latencyName(name));
+        }
+    }
+
+    private static ObjectName latencyName(String operation) throws JMException {
+        return new ObjectName(DOMAIN + ":type=CheckoutMetrics,operation=" + operation);
+    }
+
+    // Une ligne par opération (latences en microsecondes) puis une par compteur
+    public void writeTo(Appendable out) throws IOException {
+        for (int i = 0; i < names.length; i++) {
+            LatencyHistogram histogram = histograms[i];
+            out.append(String.format(Locale.ROOT,
+                    "%s count=%d mean=%.1fus p50=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus\n",
+                    names[i], histogram.getCount(), histogram.getMeanNanos() / 1000.0,
+                    histogram.getMedianNanos() / 1000.0, histogram.get99thPercentileNanos() / 1000.0,
+                    histogram.get999thPercentileNanos() / 1000.0, histogram.getMaxNanos() / 1000.0));
+        }
+        out.append("stockOutRejections ").append(Long.toString(getStockOutRejections())).append('\n');
+        out.append("discountRejections ").append(Long.toString(getDiscountRejections())).append('\n');
+    }
+
+    @Override
+    public String dump() {
+        StringBuilder out = new StringBuilder();
+        try {
+            writeTo(out);
+        } catch (IOException e) {
+            // Impossible avec un StringBuilder
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,12 @@
+package fr.ekod.metrics;
+
+// Vue JMX des compteurs du parcours d'achat ; les latences ont chacune leur propre MBean
+public interface CheckoutMetricsMBean {
+    long getStockOutRejections();
+
+    long getDiscountRejections();
+
+    String dump();
+
+    void reset();
+}
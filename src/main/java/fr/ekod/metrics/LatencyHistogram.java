@@ -0,0 +1,137 @@
+package fr.ekod.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import fr.ekod.concurrent.Stripes;
+
+// Histogramme de latences à seaux log-linéaires, dans l'esprit de HdrHistogram : chaque puissance de 2
+// est découpée en 32 seaux égaux, soit une erreur relative d'au plus 1/32 (~3 %) sur toute la plage.
+// L'enregistrement n'alloue rien (un incrément atomique et une cellule LongAdder) et peut rester
+// actif en production. Comme pour LongAdder, les compteurs sont répartis en bandes choisies par thread :
+// des threads enregistrant en même temps la même latence n'écrivent pas dans la même ligne de cache.
+// Les lectures additionnent les bandes seau par seau.
+public class LatencyHistogram implements LatencyHistogramMBean {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Au-delà (~68 s), les valeurs sont comptées dans le dernier seau
+    static final long MAX_TRACKABLE_NANOS = (1L << 36) - 1;
+    private static final int BUCKETS = indexOf(MAX_TRACKABLE_NANOS) + 1;
+    // Environ 8 Kio par bande
+    private static final int MAX_STRIPES = 16;
+
+    // Bande b, seau i : counts[b * BUCKETS + i]
+    private final AtomicLongArray counts;
+    private final int stripeMask;
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public LatencyHistogram() {
+        int stripes = Math.min(Stripes.count(), MAX_STRIPES);
+        this.stripeMask = stripes - 1;
+        this.counts = new AtomicLongArray(stripes * BUCKETS);
+    }
+
+    // Les valeurs négatives (horloge non monotone) sont ramenées à 0
+    public void record(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), MAX_TRACKABLE_NANOS);
+        counts.getAndIncrement((Stripes.probe() & stripeMask) * BUCKETS + indexOf(value));
+        sum.add(value);
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    // Les 64 premières valeurs ont chacune leur seau ; ensuite 32 seaux par puissance de 2
+    static int indexOf(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    // Plus grande valeur rangée dans le seau
+    static long highestValueIn(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    @Override
+    public long getCount() {
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    private long countAt(int index) {
+        long count = 0;
+        for (int offset = index; offset < counts.length(); offset += BUCKETS) {
+            count += counts.get(offset);
+        }
+        return count;
+    }
+
+    @Override
+    public double getMeanNanos() {
+        long n = getCount();
+        return n == 0 ? 0.0 : (double) sum.sum() / n;
+    }
+
+    @Override
+    public long getMaxNanos() {
+        return max.get();
+    }
+
+    // Latence sous laquelle se trouvent au moins percentile % des mesures, à la précision d'un seau près
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Le percentile doit être entre 0 et 100");
+        }
+        long total = getCount();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += countAt(i);
+            if (seen >= rank) {
+                return Math.min(highestValueIn(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    @Override
+    public long getMedianNanos() {
+        return getValueAtPercentile(50);
+    }
+
+    @Override
+    public long get99thPercentileNanos() {
+        return getValueAtPercentile(99);
+    }
+
+    @Override
+    public long get999thPercentileNanos() {
+        return getValueAtPercentile(99.9);
+    }
+
+    // Non atomique vis-à-vis des enregistrements concurrents : quelques mesures peuvent être perdues
+    @Override
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        sum.reset();
+        max.set(0);
+    }
+}
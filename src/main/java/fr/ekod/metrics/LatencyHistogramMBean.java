@@ -0,0 +1,18 @@
+package fr.ekod.metrics;
+
+// Vue JMX d'un histogramme de latences, en nanosecondes
+public interface LatencyHistogramMBean {
+    long getCount();
+
+    double getMeanNanos();
+
+    long getMedianNanos();
+
+    long get99thPercentileNanos();
+
+    long get999thPercentileNanos();
+
+    long getMaxNanos();
+
+    void reset();
+}
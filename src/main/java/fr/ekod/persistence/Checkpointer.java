@@ -0,0 +1,116 @@
+package fr.ekod.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Instantanés périodiques et compactage du journal.
+// Un point de contrôle replie les segments clos du journal sur l'instantané précédent, écrit un nouvel
+// instantané puis supprime les segments et instantanés qu'il couvre. Il ne lit que des fichiers déjà
+// écrits : les écrivains du journal ne sont jamais bloqués, et la reprise ne relit au plus que les
+// enregistrements postérieurs au dernier point de contrôle, quelle que soit la longueur de l'historique.
+public class Checkpointer implements Closeable {
+    private final WriteAheadLog wal;
+    private final Path directory;
+    // État replié jusqu'ici, chargé depuis le dernier instantané au premier point de contrôle
+    private PersistentState state;
+    // LSN couvert par le dernier instantané effectivement écrit
+    private long snapshotLsn;
+    private ScheduledExecutorService scheduler;
+    private volatile Exception lastFailure;
+    private final AtomicLong failureCount = new AtomicLong();
+
+    public Checkpointer(WriteAheadLog wal) {
+        this.wal = wal;
+        this.directory = wal.getDirectory();
+    }
+
+    // Lance un point de contrôle en arrière-plan à intervalle régulier
+    public synchronized void start(Duration interval) {
+        if (scheduler != null) {
+            throw new IllegalStateException("Les points de contrôle sont déjà planifiés");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "checkpointer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = interval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::checkpointInBackground, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    // Toute exception est retenue : une exception non rattrapée annulerait silencieusement la planification.
+    // Les segments sont conservés, le prochain point de contrôle reprendra le travail.
+    private void checkpointInBackground() {
+        try {
+            checkpoint();
+        } catch (IOException | RuntimeException e) {
+            lastFailure = e;
+            failureCount.incrementAndGet();
+        }
+    }
+
+    // Dernière erreur rencontrée par les points de contrôle planifiés, qui continuent malgré tout
+    public Exception getLastFailure() {
+        return lastFailure;
+    }
+
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    // Écrit un instantané couvrant tous les enregistrements acquittés et retourne son LSN
+    public synchronized long checkpoint() throws IOException {
+        if (state == null) {
+            state = Recovery.loadLatestSnapshot(directory);
+            snapshotLsn = state.lastLsn;
+        }
+        wal.rollSegment();
+        List<Path> segments = WalFormat.segments(directory);
+        // Le dernier segment est celui en cours d'écriture : seuls les précédents sont clos
+        List<Path> closed = segments.subList(0, Math.max(0, segments.size() - 1));
+        for (Path segment : closed) {
+            if (WalFormat.firstLsn(segment) > state.lastLsn + 1) {
+                throw new IOException("Enregistrements manquants avant " + segment.getFileName());
+            }
+            WalReader.read(segment, state.lastLsn + 1, state);
+        }
+        if (state.lastLsn != snapshotLsn) {
+            SnapshotFile.write(directory, state);
+            snapshotLsn = state.lastLsn;
+        }
+        compact(segments, snapshotLsn);
+        return snapshotLsn;
+    }
+
+    // Supprime les segments entièrement couverts et les instantanés plus anciens
+    private void compact(List<Path> segments, long snapshotLsn) throws IOException {
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            if (WalFormat.firstLsn(segments.get(i + 1)) <= snapshotLsn + 1) {
+                Files.deleteIfExists(segments.get(i));
+            }
+        }
+        Path current = SnapshotFile.path(directory, snapshotLsn);
+        for (Path snapshot : SnapshotFile.list(directory)) {
+            if (!snapshot.equals(current) && Files.exists(current)) {
+                Files.deleteIfExists(snapshot);
+            }
+        }
+        WalFormat.syncDirectory(directory);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package fr.ekod.persistence;
+
+import fr.ekod.Order;
+import fr.ekod.Product;
+import fr.ekod.ShoppingCart;
+
+// Reçoit chaque mutation d'un panier ou d'une commande avant qu'elle ne soit appliquée en mémoire.
+// Une exception levée par le journal annule la mutation.
+public interface Journal {
+
+    void productAdded(ShoppingCart cart, Product product, int quantity);
+
+    // Ajout de plusieurs lignes en une seule opération ; products et quantities sont de même longueur
+    default void productsAdded(ShoppingCart cart, Product[] products, int[] quantities) {
+        for (int i = 0; i < products.length; i++) {
+            productAdded(cart, products[i], quantities[i]);
+        }
+    }
+
+    void productRemoved(ShoppingCart cart, Product product, int quantity);
+
+    void orderCreated(Order order, long deliveryFeeMinorUnits);
+
+    void discountChanged(Order order, double discount);
+
+    void deliveryFeeChanged(Order order, long deliveryFeeMinorUnits);
+}
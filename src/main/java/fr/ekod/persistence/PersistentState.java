@@ -0,0 +1,90 @@
+package fr.ekod.persistence;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// État des paniers et commandes reconstruit à partir du journal, sous forme de données brutes
+// (SKU et montants en unités mineures), avant recréation des objets métier.
+class PersistentState implements WalVisitor {
+
+    static final class CartData {
+        // Quantité par SKU, dans l'ordre d'ajout
+        final Map<Integer, Integer> lines = new LinkedHashMap<>();
+        // Un panier rattaché à une commande est conservé même vide
+        boolean ordered;
+    }
+
+    static final class OrderData {
+        final long cartId;
+        // Millisecondes depuis l'epoch, ou WalFormat.UNKNOWN_CREATED_AT
+        final long createdAt;
+        long deliveryFee;
+        double discount;
+
+        OrderData(long cartId, long deliveryFee, long createdAt) {
+            this.cartId = cartId;
+            this.deliveryFee = deliveryFee;
+            this.createdAt = createdAt;
+        }
+    }
+
+    final Map<Long, CartData> carts = new LinkedHashMap<>();
+    final Map<Long, OrderData> orders = new LinkedHashMap<>();
+    // LSN du dernier enregistrement appliqué
+    long lastLsn;
+
+    @Override
+    public void productAdded(long lsn, long cartId, int sku, int quantity) {
+        cart(cartId).lines.merge(sku, quantity, Integer::sum);
+        lastLsn = lsn;
+    }
+
+    // Un panier vidé sans commande est oublié : l'état, donc l'instantané, ne grossit pas avec l'historique
+    @Override
+    public void productRemoved(long lsn, long cartId, int sku, int quantity) {
+        CartData cart = carts.get(cartId);
+        if (cart != null) {
+            Integer current = cart.lines.get(sku);
+            if (current != null) {
+                if (current <= quantity) {
+                    cart.lines.remove(sku);
+                } else {
+                    cart.lines.put(sku, current - quantity);
+                }
+            }
+            if (cart.lines.isEmpty() && !cart.ordered) {
+                carts.remove(cartId);
+            }
+        }
+        lastLsn = lsn;
+    }
+
+    @Override
+    public void orderCreated(long lsn, long orderId, long cartId, long deliveryFee, long createdAt) {
+        cart(cartId).ordered = true;
+        orders.put(orderId, new OrderData(cartId, deliveryFee, createdAt));
+        lastLsn = lsn;
+    }
+
+    @Override
+    public void discountChanged(long lsn, long orderId, double discount) {
+        OrderData order = orders.get(orderId);
+        if (order != null) {
+            order.discount = discount;
+        }
+        lastLsn = lsn;
+    }
+
+    @Override
+    public void deliveryFeeChanged(long lsn, long orderId, long deliveryFee) {
+        OrderData order = orders.get(orderId);
+        if (order != null) {
+            order.deliveryFee = deliveryFee;
+        }
+        lastLsn = lsn;
+    }
+
+    private CartData cart(long cartId) {
+        return carts.computeIfAbsent(cartId, id -> new CartData());
+    }
+}
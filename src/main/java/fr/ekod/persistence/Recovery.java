@@ -0,0 +1,126 @@
+package fr.ekod.persistence;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import fr.ekod.Money;
+import fr.ekod.Order;
+import fr.ekod.ProductCatalog;
+import fr.ekod.ShoppingCart;
+import fr.ekod.exceptions.OutOfStockException;
+
+// Reprise après incident : rejoue le journal pour reconstruire paniers, commandes et niveaux de stock.
+// Avec un stock en mémoire, les réservations rejouées sont prélevées sur le catalogue fourni, qui doit
+// donc présenter le stock d'avant les mutations journalisées. Avec un stock persistant
+// (MappedStockStore), les réservations y figurent déjà : les lignes sont recréées sans prélèvement.
+// Une réservation précédant toujours sa journalisation, un arrêt entre les deux peut laisser quelques
+// unités réservées sans panier, mais jamais de stock survendu.
+public final class Recovery {
+    private final Map<Long, ShoppingCart> carts;
+    private final Map<Long, Order> orders;
+    private final long lastLsn;
+
+    private Recovery(Map<Long, ShoppingCart> carts, Map<Long, Order> orders, long lastLsn) {
+        this.carts = Collections.unmodifiableMap(carts);
+        this.orders = Collections.unmodifiableMap(orders);
+        this.lastLsn = lastLsn;
+    }
+
+    // Part du dernier instantané valide puis rejoue les enregistrements suivants
+    public static Recovery recover(Path walDirectory, ProductCatalog catalog) throws IOException {
+        PersistentState state = loadLatestSnapshot(walDirectory);
+        replay(walDirectory, state);
+        return restore(state, catalog);
+    }
+
+    // Instantané valide le plus récent, ou état vide s'il n'y en a aucun
+    static PersistentState loadLatestSnapshot(Path directory) throws IOException {
+        IOException corruption = null;
+        for (Path snapshot : SnapshotFile.list(directory)) {
+            try {
+                return SnapshotFile.read(snapshot);
+            } catch (IOException e) {
+                // Instantané illisible : on se rabat sur le précédent, si les segments nécessaires existent encore
+                corruption = e;
+            }
+        }
+        if (corruption != null && WalFormat.segments(directory).stream().noneMatch(s -> WalFormat.firstLsn(s) == 1)) {
+            throw corruption;
+        }
+        return new PersistentState();
+    }
+
+    // Applique à l'état les enregistrements postérieurs à state.lastLsn
+    static void replay(Path walDirectory, PersistentState state) throws IOException {
+        List<Path> segments = WalFormat.segments(walDirectory);
+        for (int i = 0; i < segments.size(); i++) {
+            Path segment = segments.get(i);
+            // Un segment entièrement couvert par l'état n'est pas relu
+            if (i + 1 < segments.size() && WalFormat.firstLsn(segments.get(i + 1)) <= state.lastLsn + 1) {
+                continue;
+            }
+            if (WalFormat.firstLsn(segment) > state.lastLsn + 1) {
+                throw new IOException("Enregistrements manquants avant " + segment.getFileName());
+            }
+            WalReader.read(segment, state.lastLsn + 1, state);
+        }
+    }
+
+    // Recrée les objets métier ; les paniers et commandes restaurés ne sont rattachés à aucun journal
+    static Recovery restore(PersistentState state, ProductCatalog catalog) {
+        Map<Long, ShoppingCart> carts = new LinkedHashMap<>();
+        for (Map.Entry<Long, PersistentState.CartData> entry : state.carts.entrySet()) {
+            ShoppingCart cart = new ShoppingCart(entry.getKey(), catalog.getCurrency());
+            for (Map.Entry<Integer, Integer> line : entry.getValue().lines.entrySet()) {
+                try {
+                    if (catalog.hasDurableStock()) {
+                        cart.restoreProduct(catalog.get(line.getKey()), line.getValue());
+                    } else {
+                        cart.addProduct(catalog.get(line.getKey()), line.getValue());
+                    }
+                } catch (OutOfStockException e) {
+                    throw new IllegalStateException("Stock insuffisant pour rejouer le panier " + entry.getKey(), e);
+                }
+            }
+            carts.put(entry.getKey(), cart);
+        }
+        Map<Long, Order> orders = new LinkedHashMap<>();
+        for (Map.Entry<Long, PersistentState.OrderData> entry : state.orders.entrySet()) {
+            PersistentState.OrderData data = entry.getValue();
+            // Date d'origine conservée : les analyses par période ne placent pas tout à l'instant de la reprise
+            Instant createdAt = data.createdAt == WalFormat.UNKNOWN_CREATED_AT
+                    ? Instant.now() : Instant.ofEpochMilli(data.createdAt);
+            Order order = new Order(entry.getKey(), carts.get(data.cartId),
+                    Money.ofMinor(data.deliveryFee, catalog.getCurrency()), createdAt);
+            if (data.discount > 0) {
+                order.setDiscount(data.discount);
+            }
+            orders.put(entry.getKey(), order);
+        }
+        return new Recovery(carts, orders, state.lastLsn);
+    }
+
+    public Map<Long, ShoppingCart> getCarts() {
+        return carts;
+    }
+
+    public Map<Long, Order> getOrders() {
+        return orders;
+    }
+
+    public long getLastLsn() {
+        return lastLsn;
+    }
+
+    // Rattache les paniers et commandes restaurés au journal rouvert
+    public void attach(Journal journal) {
+        for (ShoppingCart cart : carts.values()) {
+            cart.setJournal(journal);
+        }
+    }
+}
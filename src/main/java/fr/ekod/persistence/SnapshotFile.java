@@ -0,0 +1,149 @@
+package fr.ekod.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.CRC32C;
+
+// Instantané binaire de l'état persistant, couvrant le journal jusqu'à son LSN.
+// Format (big-endian) :
+//   magic (int) | version (byte) | lastLsn (long)
+//   nombre de paniers (int) puis pour chacun : id (long) | nombre de lignes (int) | (sku (int) | quantité (int))*
+//   nombre de commandes (int) puis pour chacune :
+//     id (long) | id panier (long) | frais (long) | remise (double) | création en ms depuis l'epoch (long)
+// La version 1, sans date de création, reste lisible.
+//   CRC32C de tout ce qui précède (int)
+// Nom du fichier : snapshot-<lastLsn sur 20 chiffres>.bin
+final class SnapshotFile {
+    private static final int MAGIC = 0x454B534E; // "EKSN"
+    private static final byte VERSION = 2;
+    private static final byte VERSION_WITHOUT_CREATED_AT = 1;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+
+    private SnapshotFile() {
+    }
+
+    static Path path(Path directory, long lastLsn) {
+        return directory.resolve(String.format("%s%020d%s", PREFIX, lastLsn, SUFFIX));
+    }
+
+    // Instantanés du répertoire, du plus récent au plus ancien
+    static List<Path> list(Path directory) throws IOException {
+        List<Path> snapshots = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return snapshots;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path snapshot : stream) {
+                snapshots.add(snapshot);
+            }
+        }
+        snapshots.sort(Collections.reverseOrder());
+        return snapshots;
+    }
+
+    // Écriture atomique : fichier temporaire rendu durable puis renommé
+    static Path write(Path directory, PersistentState state) throws IOException {
+        Path target = path(directory, state.lastLsn);
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            CRC32C crc = new CRC32C();
+            OutputStream stream = new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024);
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(stream, crc));
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(state.lastLsn);
+            out.writeInt(state.carts.size());
+            for (Map.Entry<Long, PersistentState.CartData> cart : state.carts.entrySet()) {
+                out.writeLong(cart.getKey());
+                out.writeInt(cart.getValue().lines.size());
+                for (Map.Entry<Integer, Integer> line : cart.getValue().lines.entrySet()) {
+                    out.writeInt(line.getKey());
+                    out.writeInt(line.getValue());
+                }
+            }
+            out.writeInt(state.orders.size());
+            for (Map.Entry<Long, PersistentState.OrderData> order : state.orders.entrySet()) {
+                PersistentState.OrderData data = order.getValue();
+                out.writeLong(order.getKey());
+                out.writeLong(data.cartId);
+                out.writeLong(data.deliveryFee);
+                out.writeDouble(data.discount);
+                out.writeLong(data.createdAt);
+            }
+            out.flush();
+            new DataOutputStream(stream).writeInt((int) crc.getValue());
+            stream.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        WalFormat.syncDirectory(directory);
+        return target;
+    }
+
+    static PersistentState read(Path snapshot) throws IOException {
+        try (InputStream file = new BufferedInputStream(Files.newInputStream(snapshot), 64 * 1024)) {
+            CRC32C crc = new CRC32C();
+            DataInputStream in = new DataInputStream(new CheckedInputStream(file, crc));
+            int magic = in.readInt();
+            byte version = in.readByte();
+            if (magic != MAGIC || (version != VERSION && version != VERSION_WITHOUT_CREATED_AT)) {
+                throw new IOException("Instantané invalide : " + snapshot);
+            }
+            PersistentState state = new PersistentState();
+            state.lastLsn = in.readLong();
+            int carts = in.readInt();
+            for (int i = 0; i < carts; i++) {
+                PersistentState.CartData cart = new PersistentState.CartData();
+                long id = in.readLong();
+                int lines = in.readInt();
+                for (int j = 0; j < lines; j++) {
+                    cart.lines.put(in.readInt(), in.readInt());
+                }
+                state.carts.put(id, cart);
+            }
+            int orders = in.readInt();
+            for (int i = 0; i < orders; i++) {
+                long id = in.readLong();
+                long cartId = in.readLong();
+                long deliveryFee = in.readLong();
+                double discount = in.readDouble();
+                long createdAt = version == VERSION ? in.readLong() : WalFormat.UNKNOWN_CREATED_AT;
+                PersistentState.OrderData order = new PersistentState.OrderData(cartId, deliveryFee, createdAt);
+                order.discount = discount;
+                state.orders.put(id, order);
+                PersistentState.CartData cart = state.carts.get(order.cartId);
+                if (cart != null) {
+                    cart.ordered = true;
+                }
+            }
+            int expected = (int) crc.getValue();
+            if (new DataInputStream(file).readInt() != expected || file.read() != -1) {
+                throw new IOException("Instantané corrompu : " + snapshot);
+            }
+            return state;
+        } catch (EOFException e) {
+            throw new IOException("Instantané tronqué : " + snapshot, e);
+        }
+    }
+}
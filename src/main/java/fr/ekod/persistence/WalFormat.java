@@ -0,0 +1,78 @@
+package fr.ekod.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+// Format binaire du journal. Chaque enregistrement (little-endian) :
+//   longueur du corps (int) | CRC32C du corps (int) | corps
+// avec corps = lsn (long) | type (byte) | données.
+// Les segments sont nommés d'après le LSN de leur premier enregistrement : wal-00000000000000000001.log
+final class WalFormat {
+    static final byte PRODUCT_ADDED = 1;
+    static final byte PRODUCT_REMOVED = 2;
+    static final byte ORDER_CREATED = 3;
+    static final byte DISCOUNT_CHANGED = 4;
+    static final byte DELIVERY_FEE_CHANGED = 5;
+
+    // Date de création absente des ORDER_CREATED écrits avant son ajout (24 octets de données au lieu de 32)
+    static final long UNKNOWN_CREATED_AT = Long.MIN_VALUE;
+
+    static final int HEADER_SIZE = 8;
+    static final int MAX_BODY_SIZE = 64;
+
+    private static final String PREFIX = "wal-";
+    private static final String SUFFIX = ".log";
+
+    private WalFormat() {
+    }
+
+    static Path segmentPath(Path directory, long firstLsn) {
+        return directory.resolve(String.format("%s%020d%s", PREFIX, firstLsn, SUFFIX));
+    }
+
+    static long firstLsn(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    // Segments du répertoire, triés par LSN croissant
+    static List<Path> segments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path segment : stream) {
+                segments.add(segment);
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    static int crc(ByteBuffer buffer, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        ByteBuffer body = buffer.duplicate();
+        body.limit(offset + length).position(offset);
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    // Rend durable la création ou la suppression de fichiers dans le répertoire
+    static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Certains systèmes ne permettent pas d'ouvrir un répertoire : la création reste valide
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package fr.ekod.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Relecture séquentielle d'un segment du journal.
+// La lecture s'arrête au premier enregistrement incomplet ou corrompu (fin déchirée après un arrêt brutal).
+final class WalReader {
+    private WalReader() {
+    }
+
+    // Résultat du parcours d'un segment
+    static final class Scan {
+        // Position de fin du dernier enregistrement valide
+        final long validLength;
+        // LSN du dernier enregistrement valide, ou premier LSN du segment - 1 s'il est vide
+        final long lastLsn;
+
+        Scan(long validLength, long lastLsn) {
+            this.validLength = validLength;
+            this.lastLsn = lastLsn;
+        }
+    }
+
+    // Parcourt les enregistrements du segment et transmet au visiteur (s'il existe) ceux de LSN >= fromLsn
+    static Scan read(Path segment, long fromLsn, WalVisitor visitor) throws IOException {
+        long lastLsn = WalFormat.firstLsn(segment) - 1;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return new Scan(0, lastLsn);
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+            int position = 0;
+            while (buffer.limit() - position >= WalFormat.HEADER_SIZE) {
+                int length = buffer.getInt(position);
+                int crc = buffer.getInt(position + 4);
+                int body = position + WalFormat.HEADER_SIZE;
+                if (length < 9 || length > WalFormat.MAX_BODY_SIZE || body + length > buffer.limit()
+                        || WalFormat.crc(buffer, body, length) != crc) {
+                    break;
+                }
+                long lsn = buffer.getLong(body);
+                if (lsn != lastLsn + 1) {
+                    throw new IOException("LSN non contigu " + lsn + " dans " + segment);
+                }
+                if (visitor != null && lsn >= fromLsn) {
+                    dispatch(buffer, body + 8, length - 8, lsn, visitor);
+                }
+                lastLsn = lsn;
+                position = body + length;
+            }
+            return new Scan(position, lastLsn);
+        }
+    }
+
+    // length : type compris
+    private static void dispatch(ByteBuffer buffer, int offset, int length, long lsn, WalVisitor visitor)
+            throws IOException {
+        byte type = buffer.get(offset);
+        int data = offset + 1;
+        switch (type) {
+            case WalFormat.PRODUCT_ADDED:
+                visitor.productAdded(lsn, buffer.getLong(data), buffer.getInt(data + 8), buffer.getInt(data + 12));
+                break;
+            case WalFormat.PRODUCT_REMOVED:
+                visitor.productRemoved(lsn, buffer.getLong(data), buffer.getInt(data + 8), buffer.getInt(data + 12));
+                break;
+            case WalFormat.ORDER_CREATED:
+                long createdAt = length >= 1 + 32 ? buffer.getLong(data + 24) : WalFormat.UNKNOWN_CREATED_AT;
+                visitor.orderCreated(lsn, buffer.getLong(data), buffer.getLong(data + 8), buffer.getLong(data + 16),
+                        createdAt);
+                break;
+            case WalFormat.DISCOUNT_CHANGED:
+                visitor.discountChanged(lsn, buffer.getLong(data), buffer.getDouble(data + 8));
+                break;
+            case WalFormat.DELIVERY_FEE_CHANGED:
+                visitor.deliveryFeeChanged(lsn, buffer.getLong(data), buffer.getLong(data + 8));
+                break;
+            default:
+                throw new IOException("Type d'enregistrement inconnu " + type + " au LSN " + lsn);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package fr.ekod.persistence;
+
+// Reçoit les enregistrements du journal dans l'ordre des LSN
+interface WalVisitor {
+
+    void productAdded(long lsn, long cartId, int sku, int quantity);
+
+    void productRemoved(long lsn, long cartId, int sku, int quantity);
+
+    // createdAt en millisecondes depuis l'epoch, ou WalFormat.UNKNOWN_CREATED_AT
+    void orderCreated(long lsn, long orderId, long cartId, long deliveryFee, long createdAt);
+
+    void discountChanged(long lsn, long orderId, double discount);
+
+    void deliveryFeeChanged(long lsn, long orderId, long deliveryFee);
+}
@@ -0,0 +1,335 @@
+package fr.ekod.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import fr.ekod.Order;
+import fr.ekod.Product;
+import fr.ekod.ShoppingCart;
+
+// Journal binaire en ajout seul des mutations de paniers et de commandes, avec validation groupée :
+// chaque écrivain ajoute son enregistrement au lot en cours puis attend qu'il soit sur disque.
+// Le premier écrivain en attente devient meneur, écrit tout le lot accumulé et fait un seul fsync
+// pour tous ; les écrivains arrivés pendant ce fsync forment le lot suivant.
+// Le débit est donc limité par le nombre de fsync par seconde, pas par le nombre de mutations.
+public class WriteAheadLog implements Journal, Closeable {
+    public static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024;
+
+    private static final int INITIAL_BATCH_CAPACITY = 64 * 1024;
+
+    private final Path directory;
+    private final long segmentSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition batchDurable = lock.newCondition();
+    // Lot en cours de constitution et lot en cours d'écriture, échangés à chaque validation
+    private ByteBuffer pending = newBatch(INITIAL_BATCH_CAPACITY);
+    private ByteBuffer writing = newBatch(INITIAL_BATCH_CAPACITY);
+    private long nextLsn;
+    // Tous les LSN strictement inférieurs sont sur disque
+    private long durableLsn;
+    private boolean flushing;
+    private long syncCount;
+    private IOException failure;
+    private boolean closed;
+
+    // Accédé uniquement par le meneur, sous la protection du drapeau flushing
+    private FileChannel segment;
+
+    private WriteAheadLog(Path directory, long segmentSize, long nextLsn, FileChannel segment) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.nextLsn = nextLsn;
+        this.durableLsn = nextLsn;
+        this.segment = segment;
+    }
+
+    public static WriteAheadLog open(Path directory) throws IOException {
+        return open(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    // Ouvre le journal : une fin de segment déchirée par un arrêt brutal est tronquée,
+    // et l'écriture reprend au LSN suivant le dernier enregistrement valide
+    public static WriteAheadLog open(Path directory, long segmentSize) throws IOException {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("La taille de segment doit être strictement positive");
+        }
+        Files.createDirectories(directory);
+        long nextLsn = 1;
+        List<Path> segments = WalFormat.segments(directory);
+        if (!segments.isEmpty()) {
+            Path last = segments.get(segments.size() - 1);
+            WalReader.Scan scan = WalReader.read(last, Long.MAX_VALUE, null);
+            try (FileChannel channel = FileChannel.open(last, StandardOpenOption.WRITE)) {
+                if (channel.size() > scan.validLength) {
+                    channel.truncate(scan.validLength);
+                    channel.force(true);
+                }
+            }
+            nextLsn = scan.lastLsn + 1;
+        }
+        return new WriteAheadLog(directory, segmentSize, nextLsn, openSegment(directory, nextLsn));
+    }
+
+    private static FileChannel openSegment(Path directory, long firstLsn) throws IOException {
+        Path path = WalFormat.segmentPath(directory, firstLsn);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        WalFormat.syncDirectory(directory);
+        return channel;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    // LSN du prochain enregistrement
+    public long getNextLsn() {
+        lock.lock();
+        try {
+            return nextLsn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Nombre de fsync effectués : bien inférieur au nombre d'enregistrements sous charge concurrente
+    public long getSyncCount() {
+        lock.lock();
+        try {
+            return syncCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void productAdded(ShoppingCart cart, Product product, int quantity) {
+        int sku = checkSku(product);
+        lock.lock();
+        try {
+            int start = beginRecord(WalFormat.PRODUCT_ADDED, 16);
+            pending.putLong(cart.getId()).putInt(sku).putInt(quantity);
+            commit(endRecord(start));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Tous les enregistrements rejoignent le même lot : une seule attente de durabilité
+    @Override
+    public void productsAdded(ShoppingCart cart, Product[] products, int[] quantities) {
+        int[] skus = new int[products.length];
+        for (int i = 0; i < products.length; i++) {
+            skus[i] = checkSku(products[i]);
+        }
+        if (products.length == 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            long lsn = 0;
+            for (int i = 0; i < products.length; i++) {
+                int start = beginRecord(WalFormat.PRODUCT_ADDED, 16);
+                pending.putLong(cart.getId()).putInt(skus[i]).putInt(quantities[i]);
+                lsn = endRecord(start);
+            }
+            commit(lsn);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void productRemoved(ShoppingCart cart, Product product, int quantity) {
+        int sku = checkSku(product);
+        lock.lock();
+        try {
+            int start = beginRecord(WalFormat.PRODUCT_REMOVED, 16);
+            pending.putLong(cart.getId()).putInt(sku).putInt(quantity);
+            commit(endRecord(start));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void orderCreated(Order order, long deliveryFeeMinorUnits) {
+        lock.lock();
+        try {
+            int start = beginRecord(WalFormat.ORDER_CREATED, 32);
+            pending.putLong(order.getId()).putLong(order.getShoppingCart().getId()).putLong(deliveryFeeMinorUnits)
+                    .putLong(order.getCreatedAt().toEpochMilli());
+            commit(endRecord(start));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void discountChanged(Order order, double discount) {
+        lock.lock();
+        try {
+            int start = beginRecord(WalFormat.DISCOUNT_CHANGED, 16);
+            pending.putLong(order.getId()).putDouble(discount);
+            commit(endRecord(start));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void deliveryFeeChanged(Order order, long deliveryFeeMinorUnits) {
+        lock.lock();
+        try {
+            int start = beginRecord(WalFormat.DELIVERY_FEE_CHANGED, 16);
+            pending.putLong(order.getId()).putLong(deliveryFeeMinorUnits);
+            commit(endRecord(start));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static int checkSku(Product product) {
+        if (product.getSku() == Product.NO_SKU) {
+            throw new IllegalArgumentException("Seuls les produits du catalogue peuvent être journalisés : "
+                    + product.getName());
+        }
+        return product.getSku();
+    }
+
+    // Écrit l'en-tête et le début du corps dans le lot en cours, retourne la position de l'enregistrement.
+    // Appelé sous le verrou.
+    private int beginRecord(byte type, int dataSize) {
+        checkUsable();
+        int recordSize = WalFormat.HEADER_SIZE + 9 + dataSize;
+        if (pending.remaining() < recordSize) {
+            ByteBuffer grown = newBatch(Math.max(pending.capacity() * 2, pending.position() + recordSize));
+            pending.flip();
+            grown.put(pending);
+            pending = grown;
+        }
+        int start = pending.position();
+        pending.putInt(9 + dataSize).putInt(0).putLong(nextLsn).put(type);
+        return start;
+    }
+
+    // Complète l'en-tête avec le CRC du corps et attribue le LSN ; appelé sous le verrou
+    private long endRecord(int start) {
+        int body = start + WalFormat.HEADER_SIZE;
+        pending.putInt(start + 4, WalFormat.crc(pending, body, pending.position() - body));
+        return nextLsn++;
+    }
+
+    // Attend que l'enregistrement soit durable, en menant l'écriture du lot si personne ne le fait
+    private void commit(long lsn) {
+        while (durableLsn <= lsn) {
+            checkFailure();
+            if (flushing) {
+                batchDurable.awaitUninterruptibly();
+            } else {
+                flushBatch(false);
+            }
+        }
+    }
+
+    // Ferme le segment courant et en ouvre un nouveau, afin que tous les enregistrements déjà
+    // acquittés se trouvent dans des segments clos (exploitables par un Checkpointer)
+    public void rollSegment() {
+        lock.lock();
+        try {
+            checkUsable();
+            while (flushing) {
+                batchDurable.awaitUninterruptibly();
+            }
+            flushBatch(true);
+            checkFailure();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Appelé sous le verrou ; le relâche le temps de l'écriture et du fsync
+    private void flushBatch(boolean roll) {
+        flushing = true;
+        ByteBuffer batch = pending;
+        pending = writing;
+        writing = batch;
+        long upTo = nextLsn;
+        boolean hasRecords = batch.position() > 0;
+        lock.unlock();
+        IOException error = null;
+        try {
+            batch.flip();
+            if (hasRecords) {
+                while (batch.hasRemaining()) {
+                    segment.write(batch);
+                }
+                segment.force(false);
+            }
+            if (segment.position() >= segmentSize || (roll && segment.position() > 0)) {
+                segment.close();
+                segment = openSegment(directory, upTo);
+            }
+        } catch (IOException e) {
+            error = e;
+        } finally {
+            batch.clear();
+            lock.lock();
+        }
+        if (error != null) {
+            failure = error;
+        } else {
+            durableLsn = upTo;
+            if (hasRecords) {
+                syncCount++;
+            }
+        }
+        flushing = false;
+        batchDurable.signalAll();
+    }
+
+    private void checkUsable() {
+        if (closed) {
+            throw new IllegalStateException("Le journal est fermé");
+        }
+        checkFailure();
+    }
+
+    // Après un échec d'écriture, l'état du disque est incertain : le journal refuse toute écriture
+    private void checkFailure() {
+        if (failure != null) {
+            throw new UncheckedIOException("Échec d'écriture du journal", failure);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            while (flushing) {
+                batchDurable.awaitUninterruptibly();
+            }
+            if (!closed) {
+                closed = true;
+                segment.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static ByteBuffer newBatch(int capacity) {
+        return ByteBuffer.allocateDirect(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,161 @@
+package fr.ekod.pricing;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Currency;
+import java.util.concurrent.ConcurrentHashMap;
+
+import fr.ekod.Money;
+import fr.ekod.exceptions.InvalidDiscountCodeException;
+
+// Registre partagé des codes promo : recherche sans verrou, plafond d'utilisations et date d'expiration.
+// Un code est consommé par redeem() lorsqu'il est appliqué à une commande et rendu par release().
+// Un code déjà enregistré ne peut pas l'être à nouveau : il faut d'abord le retirer avec remove().
+public class DiscountCodeRegistry {
+    public static final int UNLIMITED = -1;
+
+    private final Currency currency;
+    private final Clock clock;
+    private final ConcurrentHashMap<String, Entry> codes = new ConcurrentHashMap<>();
+
+    public DiscountCodeRegistry() {
+        this(Money.EUR, Clock.systemUTC());
+    }
+
+    public DiscountCodeRegistry(Currency currency, Clock clock) {
+        this.currency = currency;
+        this.clock = clock;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public void register(String code, double percent) {
+        register(code, percent, Money.zero(currency), UNLIMITED, null);
+    }
+
+    // Remise en pourcentage ; expiresAt null : pas d'expiration
+    public void register(String code, double percent, Money minSubtotal, int maxUses, Instant expiresAt) {
+        add(code, PricingEngine.toBasisPoints(percent), 0, minSubtotal, maxUses, expiresAt);
+    }
+
+    // Remise à montant fixe, plafonnée au sous-total
+    public void register(String code, Money amountOff, Money minSubtotal, int maxUses, Instant expiresAt) {
+        add(code, 0, checkAmount(amountOff), minSubtotal, maxUses, expiresAt);
+    }
+
+    public boolean remove(String code) {
+        return code != null && codes.remove(PricingEngine.normalize(code)) != null;
+    }
+
+    // Code connu, non expiré et pas encore épuisé
+    public boolean isValid(String code) {
+        Entry entry = find(code);
+        return entry != null && !entry.isExpired(clock.instant()) && entry.quota.remaining() > 0;
+    }
+
+    public void redeem(String code) throws InvalidDiscountCodeException {
+        Entry entry = find(code);
+        if (entry == null) {
+            throw new InvalidDiscountCodeException("Code promo invalide : " + code);
+        }
+        if (entry.isExpired(clock.instant())) {
+            throw new InvalidDiscountCodeException("Le code " + entry.definition.code + " a expiré");
+        }
+        if (!entry.quota.tryAcquire()) {
+            throw new InvalidDiscountCodeException("Le code " + entry.definition.code
+                    + " a atteint sa limite d'utilisation");
+        }
+    }
+
+    // Rend une utilisation, par exemple quand le code est retiré d'une commande ; false si le code est
+    // inconnu ou qu'aucune utilisation n'est en cours (release en trop, code réenregistré entre-temps)
+    public boolean release(String code) {
+        Entry entry = find(code);
+        return entry != null && entry.quota.release();
+    }
+
+    public long getUses(String code) {
+        Entry entry = find(code);
+        return entry == null ? 0 : entry.quota.used();
+    }
+
+    // UNLIMITED pour un code sans plafond
+    public long getRemainingUses(String code) {
+        Entry entry = find(code);
+        if (entry == null) {
+            return 0;
+        }
+        return entry.unlimited ? UNLIMITED : entry.quota.remaining();
+    }
+
+    public int size() {
+        return codes.size();
+    }
+
+    // Retire les codes expirés, renvoie leur nombre
+    public int purgeExpired() {
+        Instant now = clock.instant();
+        int before = codes.size();
+        codes.values().removeIf(entry -> entry.isExpired(now));
+        return before - codes.size();
+    }
+
+    // Définition d'un code utilisable à l'instant présent, null sinon (code déjà normalisé)
+    PricingEngine.DiscountCode definition(String normalizedCode) {
+        Entry entry = codes.get(normalizedCode);
+        if (entry == null || entry.isExpired(clock.instant())) {
+            return null;
+        }
+        return entry.definition;
+    }
+
+    private Entry find(String code) {
+        return code == null ? null : codes.get(PricingEngine.normalize(code));
+    }
+
+    private void add(String code, long basisPoints, long amountOff, Money minSubtotal, int maxUses, Instant expiresAt) {
+        if (code == null || code.isBlank()) {
+            throw new IllegalArgumentException("Le code promo ne peut pas être vide");
+        }
+        if (maxUses < 0 && maxUses != UNLIMITED) {
+            throw new IllegalArgumentException("Le nombre d'utilisations ne peut pas être négatif");
+        }
+        String normalized = PricingEngine.normalize(code);
+        PricingEngine.DiscountCode definition =
+                new PricingEngine.DiscountCode(normalized, basisPoints, amountOff, checkAmount(minSubtotal));
+        if (codes.putIfAbsent(normalized, new Entry(definition, maxUses, expiresAt)) != null) {
+            throw new IllegalArgumentException("Le code promo " + normalized + " existe déjà dans le registre");
+        }
+    }
+
+    private long checkAmount(Money amount) {
+        if (!amount.getCurrency().equals(currency)) {
+            throw new IllegalArgumentException("La devise doit être celle du registre : " + currency);
+        }
+        if (amount.getMinorUnits() < 0) {
+            throw new IllegalArgumentException("Le montant ne peut pas être négatif");
+        }
+        return amount.getMinorUnits();
+    }
+
+    private static final class Entry {
+        final PricingEngine.DiscountCode definition;
+        // Sans plafond : le quota ne sert qu'à compter les utilisations
+        final boolean unlimited;
+        final StripedQuota quota;
+        final Instant expiresAt;
+
+        Entry(PricingEngine.DiscountCode definition, int maxUses, Instant expiresAt) {
+            this.definition = definition;
+            this.unlimited = maxUses == UNLIMITED;
+            this.quota = new StripedQuota(unlimited ? Long.MAX_VALUE : maxUses);
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(Instant now) {
+            return expiresAt != null && !now.isBefore(expiresAt);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package fr.ekod.pricing;
+
+import java.util.Currency;
+
+import fr.ekod.Money;
+
+// Résultat de l'évaluation d'un panier, montants en unités mineures
+public final class PriceQuote {
+    private final Currency currency;
+    private final long subtotal;
+    private final long lineSavings;
+    private final long cartDiscount;
+    private final boolean codeApplied;
+
+    PriceQuote(Currency currency, long subtotal, long lineSavings, long cartDiscount, boolean codeApplied) {
+        this.currency = currency;
+        this.subtotal = subtotal;
+        this.lineSavings = lineSavings;
+        this.cartDiscount = cartDiscount;
+        this.codeApplied = codeApplied;
+    }
+
+    // Sous-total au prix catalogue
+    public Money getSubtotal() {
+        return Money.ofMinor(subtotal, currency);
+    }
+
+    // Économies des promotions produit et des prix par palier de quantité
+    public Money getLineSavings() {
+        return Money.ofMinor(lineSavings, currency);
+    }
+
+    // Remise panier : palier de sous-total ou code promo, le plus avantageux des deux
+    public Money getCartDiscount() {
+        return Money.ofMinor(cartDiscount, currency);
+    }
+
+    public boolean isCodeApplied() {
+        return codeApplied;
+    }
+
+    public long getSavingsMinorUnits() {
+        return lineSavings + cartDiscount;
+    }
+
+    public Money getSavings() {
+        return Money.ofMinor(getSavingsMinorUnits(), currency);
+    }
+
+    public Money getNetSubtotal() {
+        return Money.ofMinor(subtotal - getSavingsMinorUnits(), currency);
+    }
+}
@@ -0,0 +1,381 @@
+package fr.ekod.pricing;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import fr.ekod.CartLine;
+import fr.ekod.Money;
+import fr.ekod.Product;
+import fr.ekod.ProductCatalog;
+import fr.ekod.ShoppingCart;
+import fr.ekod.exceptions.InvalidDiscountCodeException;
+
+// Moteur de prix immuable, compilé une fois à partir des règles déclarées dans le Builder.
+// Les règles produit sont rangées par SKU (format CSR) : pour chaque SKU, des seuils de quantité
+// croissants et le meilleur prix unitaire à partir de chaque seuil. Évaluer une ligne coûte une
+// recherche dichotomique sur les seuils de son SKU, quel que soit le nombre total de promotions.
+public final class PricingEngine {
+    private final Currency currency;
+    // Les règles ne valent que pour les produits de ce catalogue : un SKU n'est qu'un indice local
+    private final ProductCatalog catalog;
+    // Règles du SKU s : indices [ruleStart[s], ruleStart[s + 1]) de minQuantity / unitPrice
+    private final int[] ruleStart;
+    private final int[] minQuantity;
+    private final long[] unitPrice;
+    // Paliers de remise panier, seuils croissants et meilleure remise à partir de chaque seuil
+    private final long[] tierThreshold;
+    private final long[] tierBasisPoints;
+    private final Map<String, DiscountCode> codes;
+    // Registre partagé optionnel, consulté pour les codes absents des règles compilées
+    private final DiscountCodeRegistry registry;
+
+    private PricingEngine(Builder builder) {
+        this.currency = builder.catalog.getCurrency();
+        this.catalog = builder.catalog;
+        int skus = builder.catalog.size();
+        List<long[]>[] rules = builder.productRules;
+
+        int total = 0;
+        for (int sku = 0; sku < skus; sku++) {
+            if (rules[sku] != null) {
+                rules[sku].sort((a, b) -> Long.compare(a[0], b[0]));
+                total += rules[sku].size();
+            }
+        }
+        this.ruleStart = new int[skus + 1];
+        this.minQuantity = new int[total];
+        this.unitPrice = new long[total];
+        int n = 0;
+        for (int sku = 0; sku < skus; sku++) {
+            ruleStart[sku] = n;
+            if (rules[sku] == null) {
+                continue;
+            }
+            // Au-delà d'un seuil, le prix ne peut que baisser : on garde le minimum courant
+            long best = builder.catalog.getPriceMinorUnits(sku);
+            for (long[] rule : rules[sku]) {
+                best = Math.min(best, rule[1]);
+                if (n > ruleStart[sku] && minQuantity[n - 1] == rule[0]) {
+                    unitPrice[n - 1] = best;
+                } else {
+                    minQuantity[n] = (int) rule[0];
+                    unitPrice[n] = best;
+                    n++;
+                }
+            }
+        }
+        ruleStart[skus] = n;
+
+        List<long[]> tiers = builder.cartTiers;
+        tiers.sort((a, b) -> Long.compare(a[0], b[0]));
+        this.tierThreshold = new long[tiers.size()];
+        this.tierBasisPoints = new long[tiers.size()];
+        long bestTier = 0;
+        for (int i = 0; i < tiers.size(); i++) {
+            bestTier = Math.max(bestTier, tiers.get(i)[1]);
+            tierThreshold[i] = tiers.get(i)[0];
+            tierBasisPoints[i] = bestTier;
+        }
+        this.codes = Map.copyOf(builder.codes);
+        this.registry = builder.registry;
+    }
+
+    public static Builder builder(ProductCatalog catalog) {
+        return new Builder(catalog);
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public boolean isKnownCode(String code) {
+        return findCode(code) != null;
+    }
+
+    // Vérifie qu'un code peut être appliqué au panier dans son état actuel
+    public void checkCode(ShoppingCart cart, String code) throws InvalidDiscountCodeException {
+        DiscountCode discountCode = findCode(code);
+        if (discountCode == null) {
+            throw new InvalidDiscountCodeException("Code promo invalide : " + code);
+        }
+        long net;
+        synchronized (checkCurrency(cart)) {
+            net = cart.getTotalAmount().getMinorUnits() - lineSavings(cart);
+        }
+        if (net < discountCode.minSubtotal) {
+            throw new InvalidDiscountCodeException("Le code " + discountCode.code
+                    + " requiert un sous-total minimum de " + Money.ofMinor(discountCode.minSubtotal, currency));
+        }
+    }
+
+    // Évalue le panier ; un code inconnu ou dont les conditions ne sont plus remplies est ignoré
+    public PriceQuote quote(ShoppingCart cart, String code) {
+        long subtotal;
+        long lineSavings;
+        // Sous-total et lignes relevés ensemble, à l'abri d'une modification concurrente du panier
+        synchronized (checkCurrency(cart)) {
+            subtotal = cart.getTotalAmount().getMinorUnits();
+            lineSavings = lineSavings(cart);
+        }
+        long net = subtotal - lineSavings;
+
+        long tierDiscount = 0;
+        int tier = floorIndex(tierThreshold, net);
+        if (tier >= 0) {
+            tierDiscount = percentOf(net, tierBasisPoints[tier]);
+        }
+
+        long codeDiscount = 0;
+        DiscountCode discountCode = findCode(code);
+        if (discountCode != null && net >= discountCode.minSubtotal) {
+            codeDiscount = discountCode.basisPoints > 0
+                    ? percentOf(net, discountCode.basisPoints)
+                    : Math.min(discountCode.amountOff, net);
+        }
+        // Les remises panier ne se cumulent pas : la plus avantageuse l'emporte
+        boolean codeApplied = codeDiscount > 0 && codeDiscount >= tierDiscount;
+        long cartDiscount = Math.max(tierDiscount, codeDiscount);
+        return new PriceQuote(currency, subtotal, lineSavings, cartDiscount, codeApplied);
+    }
+
+    // Consomme une utilisation du code s'il relève du registre ; les codes compilés sont illimités
+    public void redeem(String code) throws InvalidDiscountCodeException {
+        if (registry != null && !codes.containsKey(normalize(code))) {
+            registry.redeem(code);
+        }
+    }
+
+    public void release(String code) {
+        if (registry != null && code != null && !codes.containsKey(normalize(code))) {
+            registry.release(code);
+        }
+    }
+
+    private DiscountCode findCode(String code) {
+        if (code == null) {
+            return null;
+        }
+        String normalized = normalize(code);
+        DiscountCode discountCode = codes.get(normalized);
+        if (discountCode == null && registry != null) {
+            discountCode = registry.definition(normalized);
+        }
+        return discountCode;
+    }
+
+    // Appelé sous le verrou du panier. Un produit d'un autre catalogue portant le même SKU
+    // n'hérite pas des promotions du produit de ce catalogue.
+    private long lineSavings(ShoppingCart cart) {
+        long savings = 0;
+        int skus = ruleStart.length - 1;
+        for (CartLine line : cart.getLines()) {
+            Product product = line.getProduct();
+            int sku = product.getSku();
+            if (sku < 0 || sku >= skus || ruleStart[sku] == ruleStart[sku + 1] || catalog.get(sku) != product) {
+                continue;
+            }
+            int rule = floorIndex(minQuantity, ruleStart[sku], ruleStart[sku + 1], line.getQuantity());
+            if (rule >= 0) {
+                long listPrice = product.getPriceAmount().getMinorUnits();
+                savings += Math.multiplyExact(listPrice - unitPrice[rule], (long) line.getQuantity());
+            }
+        }
+        return savings;
+    }
+
+    private ShoppingCart checkCurrency(ShoppingCart cart) {
+        if (!cart.getCurrency().equals(currency)) {
+            throw new IllegalArgumentException("La devise du panier doit être " + currency);
+        }
+        return cart;
+    }
+
+    // Indice du dernier seuil inférieur ou égal à la valeur, -1 s'il n'y en a pas
+    private static int floorIndex(int[] thresholds, int from, int to, int value) {
+        int low = from;
+        int high = to - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (thresholds[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high >= from ? high : -1;
+    }
+
+    private static int floorIndex(long[] thresholds, long value) {
+        int low = 0;
+        int high = thresholds.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (thresholds[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    // Même arrondi que Order : au centime le plus proche
+    static long percentOf(long amount, long basisPoints) {
+        return Math.floorDiv(Math.multiplyExact(amount, basisPoints) + 5_000, 10_000);
+    }
+
+    static long toBasisPoints(double percent) {
+        if (Double.isNaN(percent) || percent < 0 || percent > 100) {
+            throw new IllegalArgumentException("La remise doit être entre 0 et 100%");
+        }
+        return BigDecimal.valueOf(percent)
+                .movePointRight(2)
+                .setScale(0, RoundingMode.HALF_UP)
+                .longValueExact();
+    }
+
+    static String normalize(String code) {
+        return code.trim().toUpperCase(Locale.ROOT);
+    }
+
+    // Vrai si les deux saisies désignent le même code, casse et espaces ignorés
+    public static boolean sameCode(String code, String other) {
+        return code != null && other != null && normalize(code).equals(normalize(other));
+    }
+
+    static final class DiscountCode {
+        final String code;
+        final long basisPoints;
+        final long amountOff;
+        final long minSubtotal;
+
+        DiscountCode(String code, long basisPoints, long amountOff, long minSubtotal) {
+            this.code = code;
+            this.basisPoints = basisPoints;
+            this.amountOff = amountOff;
+            this.minSubtotal = minSubtotal;
+        }
+    }
+
+    // Déclaration des règles ; build() les compile en un PricingEngine immuable
+    public static final class Builder {
+        private final ProductCatalog catalog;
+        // Par SKU : couples {quantité minimale, prix unitaire en unités mineures}
+        private List<long[]>[] productRules;
+        private final List<long[]> cartTiers = new ArrayList<>();
+        private final Map<String, DiscountCode> codes = new HashMap<>();
+        private DiscountCodeRegistry registry;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private Builder(ProductCatalog catalog) {
+            this.catalog = catalog;
+            this.productRules = new List[catalog.size()];
+        }
+
+        // Promotion produit : pourcentage de réduction sur le prix unitaire
+        public Builder productDiscount(int sku, double percent) {
+            return productDiscount(sku, 1, percent);
+        }
+
+        // Prix dégressif : pourcentage de réduction à partir d'une quantité
+        public Builder productDiscount(int sku, int minQuantity, double percent) {
+            long listPrice = catalog.getPriceMinorUnits(checkSku(sku));
+            return addProductRule(sku, minQuantity, listPrice - percentOf(listPrice, toBasisPoints(percent)));
+        }
+
+        // Prix par palier : prix unitaire fixe à partir d'une quantité
+        public Builder productPrice(int sku, int minQuantity, Money unitPrice) {
+            checkSku(sku);
+            if (checkCurrency(unitPrice).getMinorUnits() < 0) {
+                throw new IllegalArgumentException("Le prix unitaire ne peut pas être négatif");
+            }
+            return addProductRule(sku, minQuantity, unitPrice.getMinorUnits());
+        }
+
+        // Remise panier automatique à partir d'un sous-total
+        public Builder cartDiscount(Money minSubtotal, double percent) {
+            cartTiers.add(new long[] {checkAmount(minSubtotal), toBasisPoints(percent)});
+            return this;
+        }
+
+        public Builder discountCode(String code, double percent) {
+            return discountCode(code, percent, Money.zero(catalog.getCurrency()));
+        }
+
+        public Builder discountCode(String code, double percent, Money minSubtotal) {
+            return addCode(code, toBasisPoints(percent), 0, minSubtotal);
+        }
+
+        // Code promo à montant fixe, plafonné au sous-total
+        public Builder discountCode(String code, Money amountOff, Money minSubtotal) {
+            return addCode(code, 0, checkAmount(amountOff), minSubtotal);
+        }
+
+        // Codes promo gérés dynamiquement, avec plafond d'utilisations et expiration
+        public Builder codeRegistry(DiscountCodeRegistry registry) {
+            if (!registry.getCurrency().equals(catalog.getCurrency())) {
+                throw new IllegalArgumentException("La devise doit être celle du catalogue : " + catalog.getCurrency());
+            }
+            this.registry = registry;
+            return this;
+        }
+
+        public PricingEngine build() {
+            if (productRules.length < catalog.size()) {
+                productRules = Arrays.copyOf(productRules, catalog.size());
+            }
+            return new PricingEngine(this);
+        }
+
+        private Builder addProductRule(int sku, int minQuantity, long price) {
+            if (minQuantity <= 0) {
+                throw new IllegalArgumentException("La quantité minimale doit être positive");
+            }
+            if (sku >= productRules.length) {
+                productRules = Arrays.copyOf(productRules, catalog.size());
+            }
+            if (productRules[sku] == null) {
+                productRules[sku] = new ArrayList<>(2);
+            }
+            productRules[sku].add(new long[] {minQuantity, Math.max(0, price)});
+            return this;
+        }
+
+        private Builder addCode(String code, long basisPoints, long amountOff, Money minSubtotal) {
+            if (code == null || code.isBlank()) {
+                throw new IllegalArgumentException("Le code promo ne peut pas être vide");
+            }
+            String normalized = normalize(code);
+            codes.put(normalized, new DiscountCode(normalized, basisPoints, amountOff, checkAmount(minSubtotal)));
+            return this;
+        }
+
+        private int checkSku(int sku) {
+            if (sku < 0 || sku >= catalog.size()) {
+                throw new IllegalArgumentException("SKU inconnu : " + sku);
+            }
+            return sku;
+        }
+
+        private long checkAmount(Money amount) {
+            if (checkCurrency(amount).getMinorUnits() < 0) {
+                throw new IllegalArgumentException("Le montant ne peut pas être négatif");
+            }
+            return amount.getMinorUnits();
+        }
+
+        private Money checkCurrency(Money amount) {
+            if (!amount.getCurrency().equals(catalog.getCurrency())) {
+                throw new IllegalArgumentException("La devise doit être celle du catalogue : " + catalog.getCurrency());
+            }
+            return amount;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package fr.ekod.pricing;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import fr.ekod.concurrent.Stripes;
+
+// Quota d'utilisations réparti entre plusieurs compteurs, chacun sur sa propre ligne de cache.
+// Un thread puise d'abord dans son compteur ; il ne visite les autres que lorsque le sien est vide,
+// si bien que des milliers de paniers utilisant le même code ne se disputent pas un seul CAS.
+// Les utilisations consommées sont comptées de la même façon : release() en reprend une avant de la
+// rendre au quota, et échoue s'il n'y en a aucune. Le plafond reste exact, même face à des release()
+// en trop : la somme des restantes et des consommées ne dépasse jamais le total.
+final class StripedQuota {
+    // 8 longs = 64 octets entre deux compteurs, pour éviter le faux partage
+    private static final int PADDING = 8;
+
+    private final AtomicLongArray available;
+    private final AtomicLongArray used;
+    private final int mask;
+
+    StripedQuota(long total) {
+        if (total < 0) {
+            throw new IllegalArgumentException("Le quota ne peut pas être négatif");
+        }
+        int stripes = Stripes.count();
+        this.mask = stripes - 1;
+        this.available = new AtomicLongArray(stripes * PADDING);
+        this.used = new AtomicLongArray(stripes * PADDING);
+        for (int i = 0; i < stripes; i++) {
+            available.set(i * PADDING, total / stripes + (i < total % stripes ? 1 : 0));
+        }
+    }
+
+    boolean tryAcquire() {
+        if (!take(available)) {
+            return false;
+        }
+        used.getAndIncrement((Stripes.probe() & mask) * PADDING);
+        return true;
+    }
+
+    // Rend une utilisation consommée ; false si aucune ne l'est
+    boolean release() {
+        if (!take(used)) {
+            return false;
+        }
+        available.getAndIncrement((Stripes.probe() & mask) * PADDING);
+        return true;
+    }
+
+    long remaining() {
+        return sum(available);
+    }
+
+    long used() {
+        return sum(used);
+    }
+
+    // Décrémente un compteur non nul, en commençant par celui du thread
+    private boolean take(AtomicLongArray slots) {
+        int start = Stripes.probe();
+        for (int i = 0; i <= mask; i++) {
+            int index = ((start + i) & mask) * PADDING;
+            long current = slots.get(index);
+            while (current > 0) {
+                long witness = slots.compareAndExchange(index, current, current - 1);
+                if (witness == current) {
+                    return true;
+                }
+                current = witness;
+            }
+        }
+        return false;
+    }
+
+    private long sum(AtomicLongArray slots) {
+        long sum = 0;
+        for (int i = 0; i <= mask; i++) {
+            sum += slots.get(i * PADDING);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,135 @@
+package fr.ekod.repository;
+
+import java.util.Arrays;
+
+// Ensemble de long sans objet par élément : adressage ouvert, sondage linéaire et suppression par
+// décalage arrière (pas de marqueurs de suppression). Non thread-safe.
+final class LongHashSet {
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private int size;
+    // L'élément EMPTY lui-même est stocké à part
+    private boolean containsEmpty;
+
+    LongHashSet() {
+        keys = new long[4];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean add(long key) {
+        if (key == EMPTY) {
+            if (containsEmpty) {
+                return false;
+            }
+            containsEmpty = true;
+            size++;
+            return true;
+        }
+        int mask = keys.length - 1;
+        int i = index(key, mask);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        size++;
+        // Taux de remplissage maximal de 3/4
+        if (size * 4 > keys.length * 3) {
+            rehash(keys.length * 2);
+        }
+        return true;
+    }
+
+    boolean remove(long key) {
+        if (key == EMPTY) {
+            if (!containsEmpty) {
+                return false;
+            }
+            containsEmpty = false;
+            size--;
+            return true;
+        }
+        int mask = keys.length - 1;
+        int i = index(key, mask);
+        while (keys[i] != key) {
+            if (keys[i] == EMPTY) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        // Décalage arrière : les éléments suivants de la même chaîne remontent dans le trou
+        int hole = i;
+        int j = (i + 1) & mask;
+        while (keys[j] != EMPTY) {
+            int home = index(keys[j], mask);
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                hole = j;
+            }
+            j = (j + 1) & mask;
+        }
+        keys[hole] = EMPTY;
+        size--;
+        if (keys.length > 16 && size * 8 < keys.length) {
+            rehash(keys.length / 2);
+        }
+        return true;
+    }
+
+    boolean contains(long key) {
+        if (key == EMPTY) {
+            return containsEmpty;
+        }
+        int mask = keys.length - 1;
+        int i = index(key, mask);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    long[] toArray() {
+        long[] result = new long[size];
+        int n = 0;
+        if (containsEmpty) {
+            result[n++] = EMPTY;
+        }
+        for (long key : keys) {
+            if (key != EMPTY) {
+                result[n++] = key;
+            }
+        }
+        return result;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = keys;
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        int mask = capacity - 1;
+        for (long key : old) {
+            if (key != EMPTY) {
+                int i = index(key, mask);
+                while (keys[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = key;
+            }
+        }
+    }
+
+    private static int index(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & mask;
+    }
+}
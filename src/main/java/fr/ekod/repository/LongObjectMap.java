@@ -0,0 +1,136 @@
+package fr.ekod.repository;
+
+import java.util.Arrays;
+
+// Table long -> objet sans boxing des clés : adressage ouvert, sondage linéaire et suppression par
+// décalage arrière, comme LongHashSet. Non thread-safe.
+final class LongObjectMap<V> {
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+    // La valeur de la clé EMPTY elle-même est stockée à part
+    private V emptyKeyValue;
+
+    LongObjectMap() {
+        keys = new long[16];
+        values = new Object[16];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        if (key == EMPTY) {
+            return emptyKeyValue;
+        }
+        int mask = keys.length - 1;
+        int i = index(key, mask);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                return (V) values[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    // La valeur ne doit pas être null
+    @SuppressWarnings("unchecked")
+    V put(long key, V value) {
+        if (key == EMPTY) {
+            V previous = emptyKeyValue;
+            if (previous == null) {
+                size++;
+            }
+            emptyKeyValue = value;
+            return previous;
+        }
+        int mask = keys.length - 1;
+        int i = index(key, mask);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                V previous = (V) values[i];
+                values[i] = value;
+                return previous;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        size++;
+        // Taux de remplissage maximal de 3/4
+        if (size * 4 > keys.length * 3) {
+            rehash(keys.length * 2);
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    V remove(long key) {
+        if (key == EMPTY) {
+            V previous = emptyKeyValue;
+            if (previous != null) {
+                emptyKeyValue = null;
+                size--;
+            }
+            return previous;
+        }
+        int mask = keys.length - 1;
+        int i = index(key, mask);
+        while (keys[i] != key) {
+            if (keys[i] == EMPTY) {
+                return null;
+            }
+            i = (i + 1) & mask;
+        }
+        V previous = (V) values[i];
+        // Décalage arrière : les éléments suivants de la même chaîne remontent dans le trou
+        int hole = i;
+        int j = (i + 1) & mask;
+        while (keys[j] != EMPTY) {
+            int home = index(keys[j], mask);
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+            j = (j + 1) & mask;
+        }
+        keys[hole] = EMPTY;
+        values[hole] = null;
+        size--;
+        if (keys.length > 16 && size * 8 < keys.length) {
+            rehash(keys.length / 2);
+        }
+        return previous;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        Arrays.fill(keys, EMPTY);
+        int mask = capacity - 1;
+        for (int k = 0; k < oldKeys.length; k++) {
+            if (oldKeys[k] != EMPTY) {
+                int i = index(oldKeys[k], mask);
+                while (keys[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[k];
+                values[i] = oldValues[k];
+            }
+        }
+    }
+
+    private static int index(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & mask;
+    }
+}
@@ -0,0 +1,213 @@
+package fr.ekod.repository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import fr.ekod.CartLine;
+import fr.ekod.Money;
+import fr.ekod.Order;
+import fr.ekod.ShoppingCart;
+
+// Stockage en mémoire des commandes, réparti par identifiant entre des partitions ayant chacune
+// leur verrou : les écritures sur des partitions différentes ne se gênent pas. Les requêtes de
+// parcours sont découpées par partition et exécutées en fork-join.
+// Les modifications d'une commande passant par update() sont exclues des parcours concurrents.
+public class OrderRepository {
+    private final Currency currency;
+    private final Shard[] shards;
+    private final int mask;
+    private final ForkJoinPool pool;
+
+    public OrderRepository() {
+        this(Money.EUR, Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    // Le nombre de partitions est arrondi à la puissance de deux supérieure
+    public OrderRepository(Currency currency, int shardCount) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Le nombre de partitions doit être positif");
+        }
+        int size = Integer.highestOneBit(shardCount);
+        if (size < shardCount) {
+            size <<= 1;
+        }
+        this.currency = currency;
+        this.shards = new Shard[size];
+        for (int i = 0; i < size; i++) {
+            shards[i] = new Shard();
+        }
+        this.mask = size - 1;
+        this.pool = ForkJoinPool.commonPool();
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    // Ajoute ou remplace la commande de même identifiant
+    public void save(Order order) {
+        if (!order.getShoppingCart().getCurrency().equals(currency)) {
+            throw new IllegalArgumentException("La devise doit être celle du référentiel : " + currency);
+        }
+        Shard shard = shardOf(order.getId());
+        shard.lock.writeLock().lock();
+        try {
+            shard.orders.put(order.getId(), order);
+        } finally {
+            shard.lock.writeLock().unlock();
+        }
+    }
+
+    public Order findById(long id) {
+        Shard shard = shardOf(id);
+        shard.lock.readLock().lock();
+        try {
+            return shard.orders.get(id);
+        } finally {
+            shard.lock.readLock().unlock();
+        }
+    }
+
+    public boolean remove(long id) {
+        Shard shard = shardOf(id);
+        shard.lock.writeLock().lock();
+        try {
+            return shard.orders.remove(id) != null;
+        } finally {
+            shard.lock.writeLock().unlock();
+        }
+    }
+
+    // Modifie une commande sous le verrou de sa partition ; IllegalArgumentException si elle est absente
+    public <R> R update(long id, Function<Order, R> change) {
+        Shard shard = shardOf(id);
+        shard.lock.writeLock().lock();
+        try {
+            Order order = shard.orders.get(id);
+            if (order == null) {
+                throw new IllegalArgumentException("Commande inconnue : " + id);
+            }
+            return change.apply(order);
+        } finally {
+            shard.lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            shard.lock.readLock().lock();
+            try {
+                size += shard.orders.size();
+            } finally {
+                shard.lock.readLock().unlock();
+            }
+        }
+        return size;
+    }
+
+    // Chiffre d'affaires (totaux des commandes) créées dans [from, to)
+    public Money revenueBetween(Instant from, Instant to) {
+        long revenue = scan(orders -> {
+            long sum = 0;
+            for (Order order : orders) {
+                Instant createdAt = order.getCreatedAt();
+                if (!createdAt.isBefore(from) && createdAt.isBefore(to)) {
+                    sum = Math.addExact(sum, order.getTotalAmount().getMinorUnits());
+                }
+            }
+            return sum;
+        }, Math::addExact);
+        return Money.ofMinor(revenue, currency);
+    }
+
+    // Commandes dont le panier contient le SKU
+    public List<Order> findBySku(int sku) {
+        return findAll(order -> {
+            ShoppingCart cart = order.getShoppingCart();
+            synchronized (cart) {
+                for (CartLine line : cart.getLines()) {
+                    if (line.getProduct().getSku() == sku) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        });
+    }
+
+    public List<Order> findAll(Predicate<Order> filter) {
+        return scan(orders -> {
+            List<Order> matches = new ArrayList<>();
+            for (Order order : orders) {
+                if (filter.test(order)) {
+                    matches.add(order);
+                }
+            }
+            return matches;
+        }, (left, right) -> {
+            left.addAll(right);
+            return left;
+        });
+    }
+
+    // Applique leaf à chaque partition sous son verrou de lecture, en parallèle, et combine les résultats
+    public <A> A scan(Function<Collection<Order>, A> leaf, BinaryOperator<A> combine) {
+        return pool.invoke(new ShardScan<>(leaf, combine, 0, shards.length));
+    }
+
+    private Shard shardOf(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return shards[(int) (h >>> 32) & mask];
+    }
+
+    private static final class Shard {
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        final Map<Long, Order> orders = new HashMap<>();
+    }
+
+    private final class ShardScan<A> extends RecursiveTask<A> {
+        private static final long serialVersionUID = 1L;
+
+        private final Function<Collection<Order>, A> leaf;
+        private final BinaryOperator<A> combine;
+        private final int from;
+        private final int to;
+
+        ShardScan(Function<Collection<Order>, A> leaf, BinaryOperator<A> combine, int from, int to) {
+            this.leaf = leaf;
+            this.combine = combine;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected A compute() {
+            if (to - from == 1) {
+                Shard shard = shards[from];
+                shard.lock.readLock().lock();
+                try {
+                    return leaf.apply(shard.orders.values());
+                } finally {
+                    shard.lock.readLock().unlock();
+                }
+            }
+            int middle = (from + to) >>> 1;
+            ShardScan<A> right = new ShardScan<>(leaf, combine, middle, to);
+            right.fork();
+            A left = new ShardScan<>(leaf, combine, from, middle).compute();
+            return combine.apply(left, right.join());
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package fr.ekod.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.function.Consumer;
+
+import fr.ekod.CartLine;
+import fr.ekod.Order;
+import fr.ekod.Product;
+import fr.ekod.ShoppingCart;
+import fr.ekod.concurrent.SkuTable;
+
+// Index inversé SKU -> paniers contenant le produit, tenu à jour par ShoppingCart à la création et à
+// la suppression de chaque ligne (les changements de quantité ne le touchent pas). Chaque SKU a sa
+// liste d'identifiants de paniers en long primitifs, protégée par son propre verrou.
+// Les produits hors catalogue ne sont pas indexés.
+// L'index ne retient pas les paniers : un panier abandonné sans detach est récupéré par le GC, et ses
+// identifiants sont retirés des listes au prochain parcours de ces SKU (countCarts et cartIds peuvent
+// d'ici là le compter encore).
+public class ProductIndex {
+    private final SkuTable<LongHashSet> postings = new SkuTable<>(16, LongHashSet::new);
+    // Identifiant -> panier, protégé par son propre verrou ; pris après celui du panier, jamais avant
+    private final LongObjectMap<CartRef> carts = new LongObjectMap<>();
+    private final ReferenceQueue<ShoppingCart> collected = new ReferenceQueue<>();
+
+    // Indexe les lignes actuelles du panier puis suit ses modifications
+    public void attach(ShoppingCart cart) {
+        synchronized (cart) {
+            synchronized (carts) {
+                expungeCollected();
+                carts.put(cart.getId(), new CartRef(cart, collected));
+            }
+            cart.setProductIndex(this);
+            for (CartLine line : cart.getLines()) {
+                lineAdded(cart, line.getProduct());
+            }
+        }
+    }
+
+    public void detach(ShoppingCart cart) {
+        synchronized (cart) {
+            cart.setProductIndex(null);
+            for (CartLine line : cart.getLines()) {
+                lineRemoved(cart, line.getProduct());
+            }
+            synchronized (carts) {
+                expungeCollected();
+                carts.remove(cart.getId());
+            }
+        }
+    }
+
+    // Appelé par ShoppingCart lorsqu'un produit entre dans le panier
+    public void lineAdded(ShoppingCart cart, Product product) {
+        int sku = product.getSku();
+        if (sku == Product.NO_SKU) {
+            return;
+        }
+        LongHashSet posting = postings.getOrCreate(sku);
+        synchronized (posting) {
+            posting.add(cart.getId());
+        }
+    }
+
+    // Appelé par ShoppingCart lorsque la dernière unité d'un produit quitte le panier
+    public void lineRemoved(ShoppingCart cart, Product product) {
+        int sku = product.getSku();
+        if (sku == Product.NO_SKU) {
+            return;
+        }
+        LongHashSet posting = postings.get(sku);
+        if (posting != null) {
+            synchronized (posting) {
+                posting.remove(cart.getId());
+            }
+        }
+    }
+
+    public int countCarts(int sku) {
+        LongHashSet posting = postings.get(sku);
+        if (posting == null) {
+            return 0;
+        }
+        synchronized (posting) {
+            return posting.size();
+        }
+    }
+
+    // Identifiants des paniers contenant le SKU, triés
+    public long[] cartIds(int sku) {
+        LongHashSet posting = postings.get(sku);
+        if (posting == null) {
+            return new long[0];
+        }
+        long[] ids;
+        synchronized (posting) {
+            ids = posting.toArray();
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    // Parcourt uniquement les paniers concernés, par exemple pour un changement de prix ou une rupture
+    public void forEachCart(int sku, Consumer<ShoppingCart> action) {
+        for (long id : cartIds(sku)) {
+            ShoppingCart cart = cart(id);
+            if (cart != null) {
+                action.accept(cart);
+            } else {
+                // Panier détaché ou récupéré par le GC entre-temps
+                forget(sku, id);
+            }
+        }
+    }
+
+    public List<ShoppingCart> findCarts(int sku) {
+        List<ShoppingCart> result = new ArrayList<>();
+        forEachCart(sku, result::add);
+        return result;
+    }
+
+    // Commandes associées aux paniers contenant le SKU
+    public List<Order> findOrders(int sku) {
+        List<Order> result = new ArrayList<>();
+        forEachCart(sku, cart -> {
+            Order order = cart.getAssociatedOrder();
+            if (order != null) {
+                result.add(order);
+            }
+        });
+        return result;
+    }
+
+    // Paniers attachés et encore joignables
+    public int getCartCount() {
+        synchronized (carts) {
+            expungeCollected();
+            return carts.size();
+        }
+    }
+
+    private ShoppingCart cart(long id) {
+        CartRef ref;
+        synchronized (carts) {
+            ref = carts.get(id);
+        }
+        return ref == null ? null : ref.get();
+    }
+
+    // Retire l'identifiant de la liste du SKU, et de la table s'il désigne un panier récupéré
+    private void forget(int sku, long id) {
+        synchronized (carts) {
+            CartRef ref = carts.get(id);
+            if (ref != null && ref.get() == null) {
+                carts.remove(id);
+            }
+        }
+        LongHashSet posting = postings.get(sku);
+        if (posting != null && cart(id) == null) {
+            synchronized (posting) {
+                posting.remove(id);
+            }
+        }
+    }
+
+    // Simule la récupération du panier par le GC (référence effacée puis placée dans sa file),
+    // pour tester l'éviction sans dépendre de System.gc()
+    void simulateCollected(long cartId) {
+        CartRef ref;
+        synchronized (carts) {
+            ref = carts.get(cartId);
+        }
+        if (ref != null) {
+            ref.clear();
+            ref.enqueue();
+        }
+    }
+
+    // Appelé sous le verrou de la table
+    private void expungeCollected() {
+        CartRef ref;
+        while ((ref = (CartRef) collected.poll()) != null) {
+            // L'identifiant a pu être réattribué à un panier recréé depuis (reprise après incident)
+            if (carts.get(ref.id) == ref) {
+                carts.remove(ref.id);
+            }
+        }
+    }
+
+    private static final class CartRef extends WeakReference<ShoppingCart> {
+        final long id;
+
+        CartRef(ShoppingCart cart, ReferenceQueue<ShoppingCart> queue) {
+            super(cart, queue);
+            this.id = cart.getId();
+        }
+    }
+}
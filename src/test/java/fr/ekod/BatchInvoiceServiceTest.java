@@ -0,0 +1,112 @@
+package fr.ekod;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import fr.ekod.exceptions.OutOfStockException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests de la classe BatchInvoiceService")
+public class BatchInvoiceServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private List<Order> orders;
+
+    @BeforeEach
+    void setUp() throws OutOfStockException {
+        Product laptop = new Product("Laptop", 1000.0, 10_000);
+        Product book = new Product("Book", 25.0, 10_000);
+        orders = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            ShoppingCart cart = new ShoppingCart();
+            cart.addProduct(laptop);
+            cart.addProduct(book, 1 + i % 7);
+            Order order = new Order(cart, 10.0);
+            order.setDiscount(i % 20);
+            orders.add(order);
+        }
+    }
+
+    @Test
+    @DisplayName("Test de génération parallèle d'un lot de factures")
+    void testGenerateAll() throws IOException {
+        BatchInvoiceService service = new BatchInvoiceService(4, 8);
+        BatchInvoiceReport report = service.generateAll(orders, directory);
+
+        assertEquals(200, report.getInvoiceCount());
+        long expectedBytes = 0;
+        for (int i = 0; i < orders.size(); i++) {
+            Path file = directory.resolve(String.format("facture-%08d.txt", i + 1));
+            String expected = new Invoice(orders.get(i)).generateInvoice();
+            assertEquals(expected, Files.readString(file, StandardCharsets.UTF_8));
+            expectedBytes += expected.getBytes(StandardCharsets.UTF_8).length;
+        }
+        assertEquals(expectedBytes, report.getBytesWritten());
+        assertTrue(report.getThroughput() > 0);
+        assertTrue(report.getMaxLatencyNanos() >= report.getAverageLatencyNanos());
+    }
+
+    @Test
+    @DisplayName("Test de génération depuis un flux de commandes")
+    void testGenerateAllFromStream() throws IOException {
+        BatchInvoiceReport report = new BatchInvoiceService(2).generateAll(
+                Stream.generate(() -> orders.get(0)).limit(1000), directory.resolve("lot"));
+
+        assertEquals(1000, report.getInvoiceCount());
+        try (Stream<Path> files = Files.list(directory.resolve("lot"))) {
+            assertEquals(1000, files.count());
+        }
+    }
+
+    @Test
+    @DisplayName("Test de lot vide")
+    void testEmptyBatch() throws IOException {
+        BatchInvoiceReport report = new BatchInvoiceService().generateAll(List.of(), directory);
+        assertEquals(0, report.getInvoiceCount());
+        assertEquals(0, report.getBytesWritten());
+    }
+
+    @Test
+    @DisplayName("Test de propagation des erreurs d'écriture")
+    void testWriteFailure() throws IOException {
+        // Un répertoire à la place du fichier attendu empêche l'écriture de la première facture
+        Files.createDirectories(directory.resolve("facture-00000001.txt"));
+        BatchInvoiceService service = new BatchInvoiceService(2);
+        assertThrows(IOException.class, () -> service.generateAll(orders, directory));
+    }
+
+    @Test
+    @DisplayName("Test de propagation des erreurs de rendu")
+    void testRenderFailure() throws IOException, OutOfStockException {
+        // Un produit sans nom fait échouer le rendu de la seconde facture
+        ShoppingCart cart = new ShoppingCart();
+        cart.addProduct(new Product(null, 1.0, 5));
+        List<Order> batch = List.of(orders.get(0), new Order(cart, 0.0));
+        BatchInvoiceService service = new BatchInvoiceService(1);
+
+        assertThrows(NullPointerException.class, () -> service.generateAll(batch, directory));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(List.of(directory.resolve("facture-00000001.txt")), files.collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    @DisplayName("Test de validation des paramètres du service")
+    void testInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new BatchInvoiceService(0));
+        assertThrows(IllegalArgumentException.class, () -> new BatchInvoiceService(2, 0));
+    }
+}
@@ -4,6 +4,16 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import fr.ekod.exceptions.OutOfStockException;
+import fr.ekod.pricing.PricingEngine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -182,4 +192,143 @@ public class InvoiceTest {
         assertTrue(invoiceText.contains("Frais de livraison: 25.00 €"));
         assertTrue(invoiceText.contains("Total: 1025.00 €")); // 1000 + 25
     }
-} 
\ No newline at end of file
+
+    @Test
+    @DisplayName("Test d'affichage des promotions du moteur de prix")
+    void testInvoiceWithPromotions() throws OutOfStockException {
+        ProductCatalog catalog = new ProductCatalog();
+        Product tablet = catalog.register("Tablet", 200.0, 10);
+        order.setPricingEngine(PricingEngine.builder(catalog).productDiscount(tablet.getSku(), 25).build());
+        cart.addProduct(tablet);
+
+        String result = invoice.generateInvoice();
+        assertTrue(result.contains("Sous-total: 200.00 €\nPromotions: -50.00 €\n"));
+        assertTrue(result.contains("Total: 160.00 €"));
+    }
+
+    // Rendu historique basé sur String.format, servant de référence octet par octet
+    private String referenceInvoice() {
+        StringBuilder reference = new StringBuilder();
+        reference.append("=== FACTURE ===\n\n");
+        if (cart.getNumberOfItems() == 0) {
+            reference.append("Aucun article dans le panier\n\n");
+        } else {
+            reference.append("Articles:\n");
+            for (Product product : cart.getProductList()) {
+                reference.append(String.format("- %s: %.2f €\n", product.getName(), product.getPrice()));
+            }
+            reference.append(String.format("\nSous-total: %.2f €\n", cart.getTotalPrice()));
+        }
+        reference.append(String.format("Frais de livraison: %.2f €\n", order.getDeliveryFee()));
+        if (order.getDiscount() > 0) {
+            reference.append(String.format("Remise: %.2f%%\n", order.getDiscount()));
+        }
+        reference.append(String.format("\nTotal: %.2f €\n", order.getTotalPrice()));
+        return reference.toString();
+    }
+
+    @Test
+    @DisplayName("Test de rendu identique au format historique")
+    void testRenderingMatchesReference() throws OutOfStockException {
+        assertEquals(referenceInvoice(), invoice.generateInvoice());
+
+        cart.addProduct(new Product("Câble", 0.05, 10), 3);
+        cart.addProduct(new Product("Avoir", -12.3, 10));
+        cart.addProduct(laptop, 2);
+        cart.addProduct(new Product("Serveur", 1234567.89, 1));
+        order.setDeliveryFee(4.9);
+        order.setDiscount(12.345);
+        assertEquals(referenceInvoice(), invoice.generateInvoice());
+    }
+
+    @Test
+    @DisplayName("Test d'écriture de la facture dans un Writer")
+    void testWriteToWriter() throws OutOfStockException, IOException {
+        cart.addProduct(laptop);
+        cart.addProduct(phone);
+        order.setDiscount(15.0);
+
+        StringWriter writer = new StringWriter();
+        invoice.writeTo(writer);
+        assertEquals(invoice.generateInvoice(), writer.toString());
+    }
+
+    @Test
+    @DisplayName("Test d'écriture de la facture dans un ByteBuffer direct")
+    void testWriteToByteBuffer() throws OutOfStockException {
+        cart.addProduct(new Product("Thé 🍵 matcha", 12.5, 3), 2);
+        cart.addProduct(book);
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1024);
+        invoice.writeTo(buffer);
+        buffer.flip();
+        byte[] written = new byte[buffer.remaining()];
+        buffer.get(written);
+
+        assertArrayEquals(invoice.generateInvoice().getBytes(StandardCharsets.UTF_8), written);
+    }
+
+    @Test
+    @DisplayName("Test de ByteBuffer trop petit pour la facture")
+    void testWriteToByteBufferOverflow() throws OutOfStockException {
+        cart.addProduct(laptop);
+        ByteBuffer buffer = ByteBuffer.allocate(32);
+        buffer.put((byte) 1);
+
+        assertThrows(BufferOverflowException.class, () -> invoice.writeTo(buffer));
+        // La position est restaurée : rien de partiel n'est laissé dans le buffer
+        assertEquals(1, buffer.position());
+    }
+
+    @Test
+    @DisplayName("Test de diffusion de la facture vers un OutputStream")
+    void testWriteToOutputStream() throws OutOfStockException, IOException {
+        cart.addProduct(laptop);
+        cart.addProduct(new Product("Thé 🍵 matcha", 12.5, 3), 2);
+        order.setDiscount(20.0);
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        invoice.writeTo(stream);
+        assertArrayEquals(invoice.generateInvoice().getBytes(StandardCharsets.UTF_8), stream.toByteArray());
+    }
+
+    @Test
+    @DisplayName("Test de diffusion par blocs d'une très grande facture")
+    void testStreamingLargeInvoice() throws OutOfStockException, IOException {
+        for (int i = 0; i < 50_000; i++) {
+            cart.addProduct(new Product("Article " + i, 1.25, 2), 2);
+        }
+        byte[] expected = invoice.generateInvoice().getBytes(StandardCharsets.UTF_8);
+
+        // Canal qui vérifie le contenu au fil de l'eau sans le conserver
+        class CheckingChannel implements WritableByteChannel {
+            int written;
+            int largestWrite;
+
+            @Override
+            public int write(ByteBuffer src) {
+                int length = src.remaining();
+                byte[] chunk = new byte[length];
+                src.get(chunk);
+                assertArrayEquals(Arrays.copyOfRange(expected, written, written + length), chunk);
+                written += length;
+                largestWrite = Math.max(largestWrite, length);
+                return length;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        }
+        CheckingChannel channel = new CheckingChannel();
+        invoice.writeTo(channel);
+
+        assertEquals(expected.length, channel.written);
+        assertTrue(channel.largestWrite <= 8192);
+    }
+}
@@ -0,0 +1,79 @@
+package fr.ekod;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.Currency;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests de la classe Money")
+public class MoneyTest {
+
+    @Test
+    @DisplayName("Test de conversion depuis un montant décimal")
+    void testOfDouble() {
+        assertEquals(99999, Money.of(999.99).getMinorUnits());
+        assertEquals(10, Money.of(0.1).getMinorUnits());
+        assertEquals(-10000, Money.of(-100.0).getMinorUnits());
+        assertEquals(Money.EUR, Money.of(1.0).getCurrency());
+    }
+
+    @Test
+    @DisplayName("Test d'arrondi des demi-centimes identique à l'ancien String.format")
+    void testHalfCentRoundingMatchesFormat() {
+        double[] amounts = {0.285, 1.005, 1.115, 2.675, -0.285, 1234.565, 0.005, 19.995};
+        for (double amount : amounts) {
+            String expected = String.format(Locale.ROOT, "%.2f", amount) + " EUR";
+            assertEquals(expected, Money.of(amount).toString(), "montant : " + amount);
+        }
+        assertEquals(29, Money.of(0.285).getMinorUnits());
+        assertEquals(101, Money.of(1.005).getMinorUnits());
+        assertThrows(IllegalArgumentException.class, () -> Money.of(1e30));
+    }
+
+    @Test
+    @DisplayName("Test des opérations arithmétiques exactes")
+    void testArithmetic() {
+        Money total = Money.zero(Money.EUR);
+        for (int i = 0; i < 1000; i++) {
+            total = total.plus(Money.of(0.1));
+        }
+        assertEquals(Money.of(100.0), total);
+        assertEquals(Money.ofMinor(2997), Money.of(9.99).times(3));
+        assertEquals(Money.ofMinor(-1), Money.of(0.1).minus(Money.of(0.11)));
+        assertEquals(99.99, Money.ofMinor(9999).toDouble());
+    }
+
+    @Test
+    @DisplayName("Test de refus des devises incompatibles")
+    void testCurrencyMismatch() {
+        Money usd = Money.ofMinor(100, Currency.getInstance("USD"));
+        assertThrows(IllegalArgumentException.class, () -> Money.of(1.0).plus(usd));
+        assertThrows(IllegalArgumentException.class, () -> Money.of(1.0).compareTo(usd));
+    }
+
+    @Test
+    @DisplayName("Test de détection des dépassements de capacité")
+    void testOverflow() {
+        Money max = Money.ofMinor(Long.MAX_VALUE);
+        assertThrows(ArithmeticException.class, () -> max.plus(Money.ofMinor(1)));
+        assertThrows(ArithmeticException.class, () -> max.times(2));
+    }
+
+    @Test
+    @DisplayName("Test de validation des montants")
+    void testInvalidAmount() {
+        assertThrows(IllegalArgumentException.class, () -> Money.of(Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> Money.of(Double.POSITIVE_INFINITY));
+    }
+
+    @Test
+    @DisplayName("Test de représentation textuelle")
+    void testToString() {
+        assertEquals("1234.05 EUR", Money.ofMinor(123405).toString());
+        assertEquals("-0.50 EUR", Money.ofMinor(-50).toString());
+        assertEquals("150 JPY", Money.ofMinor(150, Currency.getInstance("JPY")).toString());
+    }
+}
@@ -3,7 +3,12 @@ package fr.ekod;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
+import fr.ekod.exceptions.InvalidDiscountCodeException;
 import fr.ekod.exceptions.OutOfStockException;
+import fr.ekod.pricing.DiscountCodeRegistry;
+import fr.ekod.pricing.PricingEngine;
+
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -151,4 +156,179 @@ public class OrderTest {
         assertTrue(order.getTotalPrice() >= 0.0);
         assertTrue(order.getDeliveryFee() >= 0.0);
     }
-} 
\ No newline at end of file
+
+    @Test
+    @DisplayName("Test de calcul exact du total en unités mineures")
+    void testExactTotal() throws OutOfStockException {
+        Product cheap = new Product("Cheap", 0.1, 1000);
+        cart.addProduct(cheap, 1000);
+        order.setDiscount(12.5);
+
+        // 100.00 - 12.50 + 10.00, sans dérive de l'arithmétique flottante
+        assertEquals(Money.of(97.5), order.getTotalAmount());
+        assertEquals(1250, order.getDiscountBasisPoints());
+    }
+
+    @Test
+    @DisplayName("Test d'arrondi de la remise au centime")
+    void testDiscountRounding() throws OutOfStockException {
+        Product odd = new Product("Odd", 0.99, 5);
+        cart.addProduct(odd);
+        order.setDiscount(50.0);
+
+        // 0.495 arrondi à 0.50 de remise : 0.99 - 0.50 + 10.00
+        assertEquals(Money.ofMinor(1049), order.getTotalAmount());
+    }
+
+    @Test
+    @DisplayName("Test de frais de livraison en Money")
+    void testDeliveryFeeAmount() {
+        order.setDeliveryFee(Money.ofMinor(1999));
+        assertEquals(19.99, order.getDeliveryFee());
+        assertEquals(Money.ofMinor(1999), order.getTotalAmount());
+        assertThrows(IllegalArgumentException.class, () -> order.setDeliveryFee(Money.ofMinor(-1)));
+    }
+
+    @Test
+    @DisplayName("Test d'application d'un code promo")
+    void testApplyDiscountCode() throws OutOfStockException, InvalidDiscountCodeException {
+        ProductCatalog catalog = new ProductCatalog();
+        Product tablet = catalog.register("Tablet", 200.0, 10);
+        PricingEngine pricing = PricingEngine.builder(catalog)
+                .productDiscount(tablet.getSku(), 2, 10)
+                .discountCode("PROMO20", 20, Money.of(300.0))
+                .build();
+        order.setPricingEngine(pricing);
+        cart.addProduct(tablet, 2);
+
+        // 400 - 40 de promotion produit
+        assertEquals(Money.of(370.0), order.getTotalAmount());
+        assertEquals(Money.of(40.0), order.getPromotionSavings());
+
+        // 360 - 72 + 10
+        order.applyDiscountCode("PROMO20");
+        assertEquals("PROMO20", order.getDiscountCode());
+        assertEquals(Money.of(298.0), order.getTotalAmount());
+
+        // Sous le minimum du code : il n'est plus appliqué
+        cart.removeProduct(tablet);
+        assertEquals(Money.of(210.0), order.getTotalAmount());
+
+        order.removeDiscountCode();
+        assertNull(order.getDiscountCode());
+    }
+
+    @Test
+    @DisplayName("Test de réapplication du même code promo")
+    void testReapplySameDiscountCode() throws OutOfStockException, InvalidDiscountCodeException {
+        DiscountCodeRegistry registry = new DiscountCodeRegistry();
+        registry.register("UNIQUE", 10, Money.zero(Money.EUR), 1, null);
+        order.setPricingEngine(PricingEngine.builder(new ProductCatalog()).codeRegistry(registry).build());
+        cart.addProduct(book, 4);
+
+        order.applyDiscountCode("UNIQUE");
+        // Déjà appliqué : ni nouvelle consommation ni refus au plafond
+        order.applyDiscountCode(" unique ");
+        assertEquals("UNIQUE", order.getDiscountCode());
+        assertEquals(1, registry.getUses("UNIQUE"));
+        assertEquals(100.0 * 0.9 + 10.0, order.getTotalPrice(), 0.001);
+
+        order.removeDiscountCode();
+        assertEquals(0, registry.getUses("UNIQUE"));
+    }
+
+    @Test
+    @DisplayName("Test de refus d'un code promo invalide")
+    void testInvalidDiscountCode() {
+        assertThrows(InvalidDiscountCodeException.class, () -> order.applyDiscountCode("PROMO10"));
+
+        order.setPricingEngine(PricingEngine.builder(new ProductCatalog()).discountCode("PROMO10", 10).build());
+        assertThrows(InvalidDiscountCodeException.class, () -> order.applyDiscountCode("FAUX"));
+        assertNull(order.getDiscountCode());
+        assertEquals(10.0, order.getTotalPrice(), 0.01);
+    }
+
+    @Test
+    @DisplayName("Test de la version de la commande")
+    void testVersion() throws OutOfStockException {
+        long initial = order.getVersion();
+        order.getTotalPrice();
+        assertEquals(initial, order.getVersion());
+
+        cart.addProduct(book);
+        long afterAdd = order.getVersion();
+        assertTrue(afterAdd > initial);
+        order.setDiscount(10.0);
+        assertTrue(order.getVersion() > afterAdd);
+        order.setDeliveryFee(5.0);
+        assertTrue(order.getVersion() > afterAdd + 1);
+    }
+
+    @Test
+    @DisplayName("Test du recalcul paresseux après des modifications en série")
+    void testLazyTotalAfterBulkEdits() throws OutOfStockException {
+        for (int i = 0; i < 10; i++) {
+            cart.addProduct(book);
+        }
+        cart.removeProduct(book, 4);
+        order.setDiscount(10.0);
+        order.setDeliveryFee(0.0);
+
+        // 6 x 25 = 150, moins 10%
+        assertEquals(Money.of(135.0), order.getTotalAmount());
+        assertEquals(135.0, order.getTotalPrice(), 0.001);
+
+        cart.addProduct(phone);
+        assertEquals(Money.of(585.0), order.getTotalAmount());
+    }
+
+    @Test
+    @DisplayName("Test de lecture concurrente du total")
+    void testConcurrentTotalReads() throws Exception {
+        cart.addProduct(laptop);
+        Thread[] readers = new Thread[4];
+        double[] seen = new double[readers.length];
+        for (int i = 0; i < readers.length; i++) {
+            int index = i;
+            readers[i] = new Thread(() -> {
+                for (int n = 0; n < 10_000; n++) {
+                    seen[index] = order.getTotalPrice();
+                }
+            });
+            readers[i].start();
+        }
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        for (double total : seen) {
+            assertEquals(1010.0, total, 0.001);
+        }
+    }
+
+    @Test
+    @DisplayName("Test de lecture de ses propres modifications malgré des lecteurs concurrents")
+    void testReadOwnWriteDuringConcurrentReads() throws Exception {
+        cart.addProduct(laptop);
+        AtomicBoolean done = new AtomicBoolean();
+        Thread[] readers = new Thread[4];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new Thread(() -> {
+                while (!done.get()) {
+                    order.getTotalAmount();
+                }
+            });
+            readers[i].start();
+        }
+        try {
+            for (int fee = 1; fee <= 20_000; fee++) {
+                order.setDeliveryFee(Money.ofMinor(fee));
+                assertEquals(100_000 + fee, order.getTotalAmount().getMinorUnits());
+            }
+        } finally {
+            done.set(true);
+            for (Thread reader : readers) {
+                reader.join();
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package fr.ekod;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import fr.ekod.exceptions.OutOfStockException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests de la classe ProductCatalog")
+public class ProductCatalogTest {
+
+    private ProductCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new ProductCatalog();
+    }
+
+    @Test
+    @DisplayName("Test d'attribution de SKU denses")
+    void testRegisterAssignsDenseSkus() {
+        Product laptop = catalog.register("Laptop", 1000.0, 5);
+        Product phone = catalog.register("Phone", 500.0, 10);
+
+        assertEquals(0, laptop.getSku());
+        assertEquals(1, phone.getSku());
+        assertEquals(2, catalog.size());
+        assertEquals(Product.NO_SKU, new Product("Libre", 1.0, 1).getSku());
+    }
+
+    @Test
+    @DisplayName("Test de lecture des colonnes du catalogue")
+    void testColumns() {
+        catalog.register("Laptop", 1000.0, 5);
+        catalog.register("Book", 25.5, 20);
+
+        assertEquals("Book", catalog.getName(1));
+        assertEquals(2550, catalog.getPriceMinorUnits(1));
+        assertEquals(Money.of(1000.0), catalog.getPrice(0));
+        assertEquals(20, catalog.getStock(1));
+        assertThrows(IllegalArgumentException.class, () -> catalog.getName(2));
+        assertThrows(IllegalArgumentException.class, () -> catalog.get(-1));
+    }
+
+    @Test
+    @DisplayName("Test de recherche par nom")
+    void testFindByName() {
+        for (int i = 0; i < 10_000; i++) {
+            catalog.register("Produit " + i, 1.0 + i, i);
+        }
+        assertEquals(4242, catalog.findSku("Produit 4242"));
+        assertEquals(Product.NO_SKU, catalog.findSku("Inconnu"));
+        assertNull(catalog.findByName("Inconnu"));
+        assertSame(catalog.get(9999), catalog.findByName("Produit 9999"));
+    }
+
+    @Test
+    @DisplayName("Test de refus des doublons et devises étrangères")
+    void testRegisterValidation() {
+        catalog.register("Laptop", 1000.0, 5);
+        assertThrows(IllegalArgumentException.class, () -> catalog.register("Laptop", 900.0, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> catalog.register("Dollar", Money.ofMinor(100, java.util.Currency.getInstance("USD")), 1));
+        assertEquals(1, catalog.size());
+    }
+
+    @Test
+    @DisplayName("Test de stock partagé entre le produit et le catalogue")
+    void testStockBackedByCatalog() throws OutOfStockException {
+        Product laptop = catalog.register("Laptop", 1000.0, 2);
+        ShoppingCart cart = new ShoppingCart();
+        cart.addProduct(laptop, 2);
+
+        assertEquals(0, catalog.getStock(laptop.getSku()));
+        assertThrows(OutOfStockException.class, () -> cart.addProduct(catalog.get(0)));
+
+        cart.removeProduct(laptop);
+        assertEquals(1, catalog.getStock(0));
+        assertEquals(1, laptop.getStock());
+    }
+
+    @Test
+    @DisplayName("Test d'unicité de la vue Product par SKU")
+    void testSingleViewPerSku() throws Exception {
+        catalog.register("Laptop", 1000.0, 5);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Product>> views = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            views.add(executor.submit(() -> {
+                start.await();
+                return catalog.get(0);
+            }));
+        }
+        start.countDown();
+        Product first = views.get(0).get();
+        for (Future<Product> view : views) {
+            assertSame(first, view.get());
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Test de non-survente d'un produit du catalogue sous concurrence")
+    void testNoOversellUnderContention() throws Exception {
+        Product product = catalog.register("Vente flash", 9.99, 500);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < 16; t++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                int reserved = 0;
+                for (int i = 0; i < 100; i++) {
+                    if (product.tryReserve(1)) {
+                        reserved++;
+                    }
+                }
+                return reserved;
+            }));
+        }
+        start.countDown();
+        int total = 0;
+        for (Future<Integer> result : results) {
+            total += result.get();
+        }
+        executor.shutdown();
+
+        assertEquals(500, total);
+        assertEquals(0, catalog.getStock(product.getSku()));
+    }
+}
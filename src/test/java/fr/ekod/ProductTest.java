@@ -5,6 +5,14 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import fr.ekod.exceptions.OutOfStockException;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @DisplayName("Tests de la classe Product")
@@ -110,4 +118,98 @@ public class ProductTest {
         Product negativeStockProduct = new Product("NegativeStock", 100.0, -5);
         assertEquals(-5, negativeStockProduct.getStock());
     }
-} 
\ No newline at end of file
+
+    @Test
+    @DisplayName("Test de réservation et libération de stock")
+    void testTryReserveAndRelease() {
+        assertTrue(laptop.tryReserve(3));
+        assertEquals(2, laptop.getStock());
+
+        // Réservation impossible : le stock reste inchangé
+        assertFalse(laptop.tryReserve(3));
+        assertEquals(2, laptop.getStock());
+
+        laptop.release(3);
+        assertEquals(5, laptop.getStock());
+    }
+
+    @Test
+    @DisplayName("Test de validation des quantités de réservation")
+    void testReserveInvalidQuantity() {
+        assertThrows(IllegalArgumentException.class, () -> laptop.tryReserve(0));
+        assertThrows(IllegalArgumentException.class, () -> laptop.release(-1));
+        assertEquals(5, laptop.getStock());
+    }
+
+    @Test
+    @DisplayName("Test de non-survente sous forte concurrence")
+    void testNoOversellUnderContention() throws Exception {
+        int threads = 32;
+        int attemptsPerThread = 500;
+        Product flashSale = new Product("FlashSale", 10.0, 1000);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(executor.submit(() -> {
+                ShoppingCart cart = new ShoppingCart();
+                int added = 0;
+                start.await();
+                for (int i = 0; i < attemptsPerThread; i++) {
+                    try {
+                        cart.addProduct(flashSale);
+                        added++;
+                    } catch (OutOfStockException e) {
+                        // Attendu une fois le stock épuisé
+                    }
+                }
+                assertEquals(added, cart.getNumberOfItems());
+                return added;
+            }));
+        }
+        start.countDown();
+
+        int totalAdded = 0;
+        for (Future<Integer> result : results) {
+            totalAdded += result.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Exactement le stock initial a été vendu, jamais plus
+        assertEquals(1000, totalAdded);
+        assertEquals(0, flashSale.getStock());
+    }
+
+    @Test
+    @DisplayName("Test de réservations et libérations concurrentes")
+    void testConcurrentReserveAndRelease() throws Exception {
+        int threads = 16;
+        Product product = new Product("Concurrent", 10.0, 8);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 10_000; i++) {
+                    if (product.tryReserve(1)) {
+                        assertTrue(product.getStock() >= 0);
+                        product.release(1);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(8, product.getStock());
+    }
+}
@@ -4,6 +4,17 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import fr.ekod.exceptions.OutOfStockException;
+import fr.ekod.inventory.HeapStockStore;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -166,4 +177,337 @@ public class ShoppingCartTest {
         assertEquals(0.0, cart.getTotalPrice(), 0.01);
         assertTrue(cart.getProductList().isEmpty());
     }
-} 
\ No newline at end of file
+
+    @Test
+    @DisplayName("Test d'ajout d'un produit avec quantité")
+    void testAddProductWithQuantity() throws OutOfStockException {
+        cart.addProduct(book, 12);
+        cart.addProduct(book, 3);
+        cart.addProduct(laptop);
+
+        assertEquals(2, cart.getNumberOfLines());
+        assertEquals(16, cart.getNumberOfItems());
+        assertEquals(15, cart.getQuantity(book));
+        assertEquals(5, book.getStock());
+        assertEquals(15 * 25.0 + 1000.0, cart.getTotalPrice(), 0.01);
+        assertEquals(16, cart.getProductList().size());
+    }
+
+    @Test
+    @DisplayName("Test d'ajout d'une quantité supérieure au stock")
+    void testAddQuantityOutOfStock() throws OutOfStockException {
+        cart.addProduct(laptop, 2);
+
+        // Aucune unité ne doit être réservée si la quantité entière n'est pas disponible
+        assertThrows(OutOfStockException.class, () -> cart.addProduct(laptop, 4));
+        assertEquals(3, laptop.getStock());
+        assertEquals(2, cart.getQuantity(laptop));
+    }
+
+    @Test
+    @DisplayName("Test de suppression d'une quantité")
+    void testRemoveProductWithQuantity() throws OutOfStockException {
+        cart.addProduct(phone, 6);
+
+        cart.removeProduct(phone, 4);
+        assertEquals(2, cart.getQuantity(phone));
+        assertEquals(8, phone.getStock());
+
+        // Retirer plus que présent vide la ligne sans créer de stock fictif
+        cart.removeProduct(phone, 10);
+        assertEquals(0, cart.getQuantity(phone));
+        assertEquals(0, cart.getNumberOfLines());
+        assertEquals(10, phone.getStock());
+    }
+
+    @Test
+    @DisplayName("Test de validation des quantités du panier")
+    void testInvalidQuantity() {
+        assertThrows(IllegalArgumentException.class, () -> cart.addProduct(laptop, 0));
+        assertThrows(IllegalArgumentException.class, () -> cart.removeProduct(laptop, -1));
+        assertEquals(5, laptop.getStock());
+    }
+
+    @Test
+    @DisplayName("Test de sous-total exact après ajouts et suppressions")
+    void testSubtotalDoesNotDrift() throws OutOfStockException {
+        Product cheap = new Product("Cheap", 0.1, 1000);
+        for (int i = 0; i < 1000; i++) {
+            cart.addProduct(cheap);
+        }
+        // La somme en double de 1000 × 0.1 dériverait, pas le sous-total maintenu
+        assertEquals(100.0, cart.getTotalPrice());
+
+        cart.removeProduct(cheap, 999);
+        assertEquals(0.1, cart.getTotalPrice());
+    }
+
+    @Test
+    @DisplayName("Test de construction d'un grand panier avec commande associée")
+    void testLargeCartWithOrder() throws OutOfStockException {
+        Order order = new Order(cart, 0.0);
+        int lines = 100_000;
+        for (int i = 0; i < lines; i++) {
+            cart.addProduct(new Product("P" + i, 1.5, 1));
+        }
+        // Chaque ajout recalcule la commande : le coût doit rester constant par ajout
+        assertEquals(lines, cart.getNumberOfLines());
+        assertEquals(150_000.0, cart.getTotalPrice());
+        assertEquals(150_000.0, order.getTotalPrice(), 0.01);
+    }
+
+    @Test
+    @DisplayName("Test de la vue en lecture seule des lignes")
+    void testLinesView() throws OutOfStockException {
+        Collection<CartLine> lines = cart.getLines();
+        assertTrue(lines.isEmpty());
+
+        cart.addProduct(laptop);
+        cart.addProduct(book, 3);
+
+        // La vue reflète le panier sans nouvel appel ni copie
+        assertSame(lines, cart.getLines());
+        assertEquals(2, lines.size());
+        assertThrows(UnsupportedOperationException.class, () -> lines.clear());
+        assertThrows(UnsupportedOperationException.class, () -> lines.iterator().remove());
+    }
+
+    @Test
+    @DisplayName("Test du parcours des lignes par visiteur")
+    void testForEachLine() throws OutOfStockException {
+        cart.addProduct(laptop, 2);
+        cart.addProduct(phone);
+
+        List<String> visited = new ArrayList<>();
+        cart.forEachLine((product, quantity) -> visited.add(product.getName() + "×" + quantity));
+        assertEquals(List.of("Laptop×2", "Phone×1"), visited);
+    }
+
+    @Test
+    @DisplayName("Test de l'instantané isolé des lignes")
+    void testSnapshot() throws OutOfStockException {
+        cart.addProduct(laptop, 2);
+        List<CartLine> snapshot = cart.snapshot();
+
+        cart.addProduct(laptop);
+        cart.addProduct(phone);
+
+        assertEquals(1, snapshot.size());
+        assertEquals(2, snapshot.get(0).getQuantity());
+        assertSame(laptop, snapshot.get(0).getProduct());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.remove(0));
+    }
+
+    @Test
+    @DisplayName("Test de débordement du sous-total sans réservation ni modification")
+    void testSubtotalOverflowLeavesCartUnchanged() throws OutOfStockException {
+        Product expensive = new Product("Hors de prix", Money.ofMinor(Long.MAX_VALUE / 2), 10);
+        cart.addProduct(expensive);
+
+        assertThrows(ArithmeticException.class, () -> cart.addProduct(expensive, 2));
+        assertEquals(1, cart.getQuantity(expensive));
+        assertEquals(1, cart.getNumberOfItems());
+        assertEquals(Money.ofMinor(Long.MAX_VALUE / 2), cart.getTotalAmount());
+        assertEquals(9, expensive.getStock());
+    }
+
+    @Test
+    @DisplayName("Test d'ajout groupé de plusieurs produits")
+    void testAddAll() throws OutOfStockException {
+        Order order = new Order(cart, 0.0);
+        Map<Product, Integer> items = new LinkedHashMap<>();
+        items.put(laptop, 2);
+        items.put(book, 3);
+        cart.addProduct(book);
+
+        cart.addAll(items);
+
+        assertEquals(6, cart.getNumberOfItems());
+        assertEquals(4, cart.getQuantity(book));
+        assertEquals(2100.0, cart.getTotalPrice(), 0.01);
+        assertEquals(2100.0, order.getTotalPrice(), 0.01);
+        assertEquals(3, laptop.getStock());
+        assertEquals(16, book.getStock());
+    }
+
+    @Test
+    @DisplayName("Test d'ajout groupé en tout ou rien")
+    void testAddAllIsAllOrNothing() throws OutOfStockException {
+        cart.addProduct(phone);
+        Map<Product, Integer> items = new LinkedHashMap<>();
+        items.put(book, 5);
+        items.put(phone, 3);
+        items.put(laptop, 6);
+        items.put(new Product("Jamais réservé", 1.0, 1), 1);
+
+        OutOfStockException e = assertThrows(OutOfStockException.class, () -> cart.addAll(items));
+        assertTrue(e.getMessage().contains("Laptop"));
+
+        assertEquals(1, cart.getNumberOfItems());
+        assertEquals(500.0, cart.getTotalPrice(), 0.01);
+        assertEquals(20, book.getStock());
+        assertEquals(9, phone.getStock());
+        assertEquals(5, laptop.getStock());
+
+        items.put(laptop, 0);
+        assertThrows(IllegalArgumentException.class, () -> cart.addAll(items));
+        assertEquals(20, book.getStock());
+    }
+
+    @Test
+    @DisplayName("Test d'ajouts groupés concurrents sans survente")
+    void testConcurrentAddAll() throws Exception {
+        Product a = new Product("A", 1.0, 100);
+        Product b = new Product("B", 1.0, 60);
+        Product c = new Product("C", 1.0, 80);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ShoppingCart>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            boolean reversed = t % 2 == 0;
+            results.add(executor.submit(() -> {
+                ShoppingCart local = new ShoppingCart();
+                Map<Product, Integer> items = new LinkedHashMap<>();
+                // Ordres d'acquisition opposés selon les threads
+                if (reversed) {
+                    items.put(c, 1);
+                    items.put(b, 1);
+                    items.put(a, 1);
+                } else {
+                    items.put(a, 1);
+                    items.put(b, 1);
+                    items.put(c, 1);
+                }
+                start.await();
+                for (int i = 0; i < 50; i++) {
+                    try {
+                        local.addAll(items);
+                    } catch (OutOfStockException e) {
+                        // rupture : rien n'a été réservé
+                    }
+                }
+                return local;
+            }));
+        }
+        start.countDown();
+        int checkouts = 0;
+        for (Future<ShoppingCart> result : results) {
+            ShoppingCart local = result.get();
+            assertEquals(local.getQuantity(a), local.getQuantity(b));
+            assertEquals(local.getQuantity(a), local.getQuantity(c));
+            checkouts += local.getQuantity(a);
+        }
+        executor.shutdown();
+
+        assertEquals(60, checkouts);
+        assertEquals(40, a.getStock());
+        assertEquals(0, b.getStock());
+        assertEquals(20, c.getStock());
+    }
+
+    @Test
+    @DisplayName("Test d'ajouts groupés en ordres opposés sur deux produits rares")
+    void testOppositeOrdersOnScarceProducts() throws Exception {
+        // Réservations et restitutions laissent la main un instant : sans ordre global, chaque panier
+        // prendrait son premier produit et échouerait sur celui de l'autre avant qu'il soit rendu
+        HeapStockStore slow = new HeapStockStore() {
+            @Override
+            public boolean tryReserve(int slot, int quantity) {
+                boolean reserved = super.tryReserve(slot, quantity);
+                if (reserved) {
+                    pause();
+                }
+                return reserved;
+            }
+
+            @Override
+            public void release(int slot, int quantity) {
+                pause();
+                super.release(slot, quantity);
+            }
+        };
+        ProductCatalog catalog = new ProductCatalog(Money.EUR, slow);
+        Product a = catalog.register("A", 1.0, 0);
+        Product b = catalog.register("B", 1.0, 0);
+        Map<Product, Integer> ab = new LinkedHashMap<>();
+        ab.put(a, 1);
+        ab.put(b, 1);
+        Map<Product, Integer> ba = new LinkedHashMap<>();
+        ba.put(b, 1);
+        ba.put(a, 1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 10; round++) {
+                slow.release(a.getSku(), 1);
+                slow.release(b.getSku(), 1);
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Boolean>> results = new ArrayList<>();
+                for (Map<Product, Integer> items : List.of(ab, ba)) {
+                    results.add(executor.submit(() -> {
+                        start.await();
+                        try {
+                            new ShoppingCart().addAll(items);
+                            return true;
+                        } catch (OutOfStockException e) {
+                            return false;
+                        }
+                    }));
+                }
+                start.countDown();
+                int succeeded = 0;
+                for (Future<Boolean> result : results) {
+                    succeeded += result.get() ? 1 : 0;
+                }
+                assertEquals(1, succeeded, "tour " + round);
+                assertEquals(0, a.getStock());
+                assertEquals(0, b.getStock());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void pause() {
+        try {
+            Thread.sleep(5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    @DisplayName("Test de lectures cohérentes pendant que le panier est vidé par un autre thread")
+    void testReadsDuringConcurrentClear() throws Exception {
+        Product stocked = new Product("Stylo", 2.0, 1_000_000);
+        Order order = new Order(cart, 0.0);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> writer = executor.submit(() -> {
+            for (int i = 0; i < 20_000; i++) {
+                cart.addProduct(stocked, 3);
+                cart.addProduct(phone);
+                cart.clear();
+            }
+            return null;
+        });
+        while (!writer.isDone()) {
+            String invoice = new Invoice(order).generateInvoice();
+            // Lignes et total relevés sur un même état du panier
+            assertTrue(invoice.endsWith("Total: 0.00 €\n") && !invoice.contains("Stylo")
+                    || invoice.endsWith("Total: 6.00 €\n") && !invoice.contains("Phone")
+                    || invoice.endsWith("Total: 506.00 €\n") && invoice.contains("Phone"), invoice);
+            List<CartLine> lines = cart.snapshot();
+            int items = 0;
+            for (CartLine line : lines) {
+                items += line.getQuantity();
+            }
+            assertTrue(items <= 4);
+            cart.forEachLine((product, quantity) -> assertTrue(quantity > 0));
+        }
+        writer.get();
+        executor.shutdown();
+        assertEquals(0, cart.getNumberOfItems());
+        assertEquals(1_000_000, stocked.getStock());
+    }
+}
@@ -0,0 +1,188 @@
+package fr.ekod.analytics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import fr.ekod.Money;
+import fr.ekod.Order;
+import fr.ekod.Product;
+import fr.ekod.ProductCatalog;
+import fr.ekod.ShoppingCart;
+import fr.ekod.exceptions.OutOfStockException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests de la classe SalesAggregator")
+public class SalesAggregatorTest {
+
+    // Horloge avançable à la main
+    private static final class MutableClock extends Clock {
+        private volatile Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    private MutableClock clock;
+    private SalesAggregator aggregator;
+    private ProductCatalog catalog;
+    private Product laptop;
+    private Product book;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2026-03-01T10:00:00Z"));
+        aggregator = new SalesAggregator(Money.EUR, Duration.ofMinutes(1), 5, clock);
+        catalog = new ProductCatalog();
+        laptop = catalog.register("Laptop", 1000.0, 1_000_000);
+        book = catalog.register("Book", 25.0, 1_000_000);
+    }
+
+    private Order order(int laptops, int books, double discount) throws OutOfStockException {
+        ShoppingCart cart = new ShoppingCart();
+        Order order = new Order(cart, 5.0);
+        if (laptops > 0) {
+            cart.addProduct(laptop, laptops);
+        }
+        if (books > 0) {
+            cart.addProduct(book, books);
+        }
+        order.setDiscount(discount);
+        return order;
+    }
+
+    @Test
+    @DisplayName("Test des agrégats globaux et par SKU")
+    void testTotals() throws OutOfStockException {
+        aggregator.record(order(1, 2, 10.0));
+        aggregator.record(order(0, 4, 0.0));
+
+        assertEquals(2, aggregator.getOrderCount());
+        // (1050 - 105 + 5) + (100 + 5)
+        assertEquals(Money.of(1055.0), aggregator.getRevenue());
+        assertEquals(Money.of(10.0), aggregator.getDeliveryFees());
+        assertEquals(7, aggregator.getUnitsSold());
+        assertEquals(5.0, aggregator.getAverageDiscount(), 0.0001);
+        assertEquals(Money.of(527.5), aggregator.getAverageOrderValue());
+
+        assertEquals(6, aggregator.getUnitsSold(book.getSku()));
+        assertEquals(Money.of(150.0), aggregator.getRevenue(book.getSku()));
+        assertEquals(1, aggregator.getUnitsSold(laptop.getSku()));
+        assertEquals(0, aggregator.getUnitsSold(99));
+        assertEquals(Money.zero(Money.EUR), aggregator.getRevenue(99));
+    }
+
+    @Test
+    @DisplayName("Test d'un agrégateur vide")
+    void testEmpty() {
+        assertEquals(0, aggregator.getOrderCount());
+        assertEquals(0.0, aggregator.getAverageDiscount());
+        assertEquals(Money.zero(Money.EUR), aggregator.getAverageOrderValue());
+        assertEquals(Money.zero(Money.EUR), aggregator.getRecentRevenue(5));
+    }
+
+    @Test
+    @DisplayName("Test des fenêtres glissantes")
+    void testRollingWindows() throws OutOfStockException {
+        aggregator.record(order(0, 4, 0.0));
+        clock.advance(Duration.ofMinutes(1));
+        aggregator.record(order(0, 2, 0.0));
+        aggregator.record(order(0, 2, 0.0));
+
+        assertEquals(2, aggregator.getRecentOrderCount(1));
+        assertEquals(3, aggregator.getRecentOrderCount(2));
+        assertEquals(Money.of(215.0), aggregator.getRecentRevenue(5));
+        assertEquals(8, aggregator.getRecentUnitsSold(5));
+
+        // La première fenêtre sort de l'anneau de 5 minutes
+        clock.advance(Duration.ofMinutes(4));
+        assertEquals(2, aggregator.getRecentOrderCount(5));
+        clock.advance(Duration.ofMinutes(1));
+        assertEquals(0, aggregator.getRecentOrderCount(5));
+        aggregator.record(order(0, 1, 0.0));
+        assertEquals(1, aggregator.getRecentOrderCount(5));
+
+        // Une finalisation trop ancienne ne compte que dans les totaux
+        aggregator.record(order(0, 1, 0.0), Instant.parse("2026-03-01T09:00:00Z"));
+        assertEquals(1, aggregator.getRecentOrderCount(5));
+        assertEquals(5, aggregator.getOrderCount());
+    }
+
+    @Test
+    @DisplayName("Test de refus d'une autre devise")
+    void testCurrency() {
+        Currency usd = Currency.getInstance("USD");
+        Order order = new Order(new ShoppingCart(usd), Money.zero(usd));
+        assertThrows(IllegalArgumentException.class, () -> aggregator.record(order));
+        assertThrows(IllegalArgumentException.class,
+                () -> new SalesAggregator(Money.EUR, Duration.ZERO, 5, clock));
+    }
+
+    @Test
+    @DisplayName("Test d'ingestion concurrente")
+    void testConcurrentIngestion() throws Exception {
+        int threads = 8;
+        int perThread = 500;
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < threads * perThread; i++) {
+            orders.add(order(0, 1, 0.0));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            List<Order> slice = orders.subList(t * perThread, (t + 1) * perThread);
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (Order order : slice) {
+                    aggregator.record(order);
+                    aggregator.getRecentRevenue(5);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(threads * perThread, aggregator.getOrderCount());
+        assertEquals(Money.ofMinor(threads * perThread * 3000L), aggregator.getRevenue());
+        assertEquals(threads * perThread, aggregator.getRecentOrderCount(1));
+        assertEquals(threads * perThread, aggregator.getUnitsSold(book.getSku()));
+    }
+}
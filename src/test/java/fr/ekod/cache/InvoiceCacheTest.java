@@ -0,0 +1,216 @@
+package fr.ekod.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import fr.ekod.Invoice;
+import fr.ekod.Money;
+import fr.ekod.Order;
+import fr.ekod.Product;
+import fr.ekod.ShoppingCart;
+import fr.ekod.exceptions.OutOfStockException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests de la classe InvoiceCache")
+public class InvoiceCacheTest {
+    private Product laptop;
+    private Product book;
+
+    @BeforeEach
+    void setUp() {
+        laptop = new Product("Laptop", 1000.0, 1000);
+        book = new Product("Book", 25.0, 1000);
+    }
+
+    private Order newOrder() throws OutOfStockException {
+        ShoppingCart cart = new ShoppingCart();
+        Order order = new Order(cart, 5.0);
+        cart.addProduct(laptop);
+        cart.addProduct(book, 2);
+        return order;
+    }
+
+    @Test
+    @DisplayName("Test de mise en cache d'une facture identique à la facture générée")
+    void testCachedInvoice() throws OutOfStockException {
+        InvoiceCache cache = new InvoiceCache(1 << 20);
+        Order order = newOrder();
+        String expected = new Invoice(order).generateInvoice();
+
+        assertEquals(expected, cache.getInvoice(order));
+        assertEquals(expected, cache.getInvoice(order));
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.size());
+        int length = expected.getBytes(StandardCharsets.UTF_8).length;
+        assertEquals(length + InvoiceCache.ENTRY_OVERHEAD, cache.getWeight());
+    }
+
+    @Test
+    @DisplayName("Test d'invalidation par les modifications du panier et de la commande")
+    void testVersionInvalidation() throws OutOfStockException {
+        InvoiceCache cache = new InvoiceCache(1 << 20);
+        Order order = newOrder();
+        String initial = cache.getInvoice(order);
+
+        order.getShoppingCart().addProduct(book);
+        String afterAdd = cache.getInvoice(order);
+        assertNotEquals(initial, afterAdd);
+        assertEquals(new Invoice(order).generateInvoice(), afterAdd);
+
+        order.setDiscount(10.0);
+        assertTrue(cache.getInvoice(order).contains("Remise: 10.00%"));
+        order.setDeliveryFee(0.0);
+        assertTrue(cache.getInvoice(order).contains("Frais de livraison: 0.00 €"));
+
+        assertEquals(4, cache.getMissCount());
+        assertEquals(0, cache.getHitCount());
+        // L'entrée périmée est remplacée, pas ajoutée
+        assertEquals(1, cache.size());
+
+        cache.invalidate(order.getId());
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getWeight());
+    }
+
+    @Test
+    @DisplayName("Test d'éviction des factures les moins récemment lues")
+    void testLruEviction() throws OutOfStockException {
+        Order first = newOrder();
+        int weight = cacheWeight(first);
+        InvoiceCache cache = new InvoiceCache(weight * 2L, 1);
+        Order second = newOrder();
+        Order third = newOrder();
+
+        cache.getInvoice(first);
+        cache.getInvoice(second);
+        // first devient la plus récemment lue : c'est second qui sera évincée
+        cache.getInvoice(first);
+        cache.getInvoice(third);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertTrue(cache.getWeight() <= cache.getMaxWeight());
+        long misses = cache.getMissCount();
+        cache.getInvoice(first);
+        cache.getInvoice(third);
+        assertEquals(misses, cache.getMissCount());
+        cache.getInvoice(second);
+        assertEquals(misses + 1, cache.getMissCount());
+    }
+
+    private static int cacheWeight(Order order) {
+        return new Invoice(order).generateInvoice().getBytes(StandardCharsets.UTF_8).length
+                + InvoiceCache.ENTRY_OVERHEAD;
+    }
+
+    @Test
+    @DisplayName("Test d'une facture plus lourde que le cache")
+    void testOversizedInvoice() throws OutOfStockException {
+        InvoiceCache cache = new InvoiceCache(64, 1);
+        Order order = newOrder();
+        assertEquals(new Invoice(order).generateInvoice(), cache.getInvoice(order));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("Test d'une grande facture dépassant le buffer de rendu")
+    void testLargeInvoice() throws OutOfStockException {
+        InvoiceCache cache = new InvoiceCache(1 << 20);
+        ShoppingCart cart = new ShoppingCart();
+        Order order = new Order(cart, 5.0);
+        cart.addProduct(book, 500);
+        assertEquals(new Invoice(order).generateInvoice(), cache.getInvoice(order));
+
+        // Une facture hors norme n'agrandit pas durablement le buffer du thread
+        ShoppingCart huge = new ShoppingCart();
+        Order hugeOrder = new Order(huge, 5.0);
+        huge.addProduct(new Product("Stylo", 1.0, 100_000), 50_000);
+        assertEquals(new Invoice(hugeOrder).generateInvoice(), cache.getInvoice(hugeOrder));
+        assertTrue(InvoiceCache.scratchCapacity() <= InvoiceCache.MAX_SCRATCH_SIZE);
+    }
+
+    @Test
+    @DisplayName("Test de deux commandes distinctes de même identifiant")
+    void testSameIdDistinctOrders() throws OutOfStockException {
+        InvoiceCache cache = new InvoiceCache(1 << 20);
+        ShoppingCart firstCart = new ShoppingCart();
+        firstCart.addProduct(laptop);
+        Order first = new Order(5000, firstCart, Money.of(5.0));
+        ShoppingCart secondCart = new ShoppingCart();
+        secondCart.addProduct(book);
+        Order second = new Order(5000, secondCart, Money.of(5.0));
+        assertEquals(first.getVersion(), second.getVersion());
+
+        assertTrue(cache.getInvoice(first).contains("Laptop"));
+        String invoice = cache.getInvoice(second);
+        assertTrue(invoice.contains("Book"));
+        assertFalse(invoice.contains("Laptop"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    @DisplayName("Test des accès en octets")
+    void testByteAccess() throws OutOfStockException, IOException {
+        InvoiceCache cache = new InvoiceCache(1 << 20);
+        Order order = newOrder();
+        byte[] expected = new Invoice(order).generateInvoice().getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer buffer = cache.getBuffer(order);
+        assertTrue(buffer.isReadOnly());
+        assertEquals(ByteBuffer.wrap(expected), buffer);
+        assertThrows(ReadOnlyBufferException.class, () -> buffer.put(0, (byte) 0));
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        cache.writeTo(order, stream);
+        assertArrayEquals(expected, stream.toByteArray());
+    }
+
+    @Test
+    @DisplayName("Test de paramètres invalides")
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new InvoiceCache(0));
+        assertThrows(IllegalArgumentException.class, () -> new InvoiceCache(1024, 0));
+    }
+
+    @Test
+    @DisplayName("Test de lectures concurrentes")
+    void testConcurrentReads() throws Exception {
+        InvoiceCache cache = new InvoiceCache(1 << 20);
+        List<Order> orders = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Order order = newOrder();
+            orders.add(order);
+            expected.add(new Invoice(order).generateInvoice());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    int n = i % orders.size();
+                    assertEquals(expected.get(n), cache.getInvoice(orders.get(n)));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertEquals(8000, cache.getHitCount() + cache.getMissCount());
+        assertEquals(orders.size(), cache.size());
+    }
+}
@@ -0,0 +1,204 @@
+package fr.ekod.codec;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import fr.ekod.Order;
+import fr.ekod.Product;
+import fr.ekod.ProductCatalog;
+import fr.ekod.ShoppingCart;
+import fr.ekod.exceptions.OutOfStockException;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests de la classe OrderCodec")
+public class OrderCodecTest {
+
+    private ProductCatalog catalog;
+    private Product laptop;
+    private Product book;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new ProductCatalog();
+        laptop = catalog.register("Laptop", 1000.0, 10);
+        book = catalog.register("Book", 25.5, 100);
+    }
+
+    private Order sampleOrder() throws OutOfStockException {
+        ShoppingCart cart = new ShoppingCart();
+        Order order = new Order(cart, 4.90);
+        cart.addProduct(laptop, 2);
+        cart.addProduct(book, 3);
+        order.setDiscount(12.5);
+        return order;
+    }
+
+    private static ByteBuffer encode(Order order) {
+        ByteBuffer buffer = ByteBuffer.allocate(OrderCodec.encodedSize(order));
+        OrderCodec.encode(order, buffer);
+        assertFalse(buffer.hasRemaining());
+        return buffer.flip();
+    }
+
+    @Test
+    @DisplayName("Test d'aller-retour via le visiteur")
+    void testRoundTripVisitor() throws OutOfStockException {
+        Order order = sampleOrder();
+        List<long[]> lines = new ArrayList<>();
+        long[] header = new long[4];
+
+        OrderCodec.decode(encode(order), new OrderVisitor() {
+            @Override
+            public void order(long orderId, long cartId, Currency currency, long deliveryFee, long discount) {
+                assertEquals("EUR", currency.getCurrencyCode());
+                header[0] = orderId;
+                header[1] = cartId;
+                header[2] = deliveryFee;
+                header[3] = discount;
+            }
+
+            @Override
+            public void line(int sku, int quantity, long unitPrice) {
+                lines.add(new long[] {sku, quantity, unitPrice});
+            }
+        });
+
+        assertArrayEquals(new long[] {order.getId(), order.getShoppingCart().getId(), 490, 1250}, header);
+        assertEquals(2, lines.size());
+        assertArrayEquals(new long[] {laptop.getSku(), 2, 100000}, lines.get(0));
+        assertArrayEquals(new long[] {book.getSku(), 3, 2550}, lines.get(1));
+    }
+
+    @Test
+    @DisplayName("Test de reconstruction d'une commande depuis le catalogue")
+    void testDecodeIntoCatalog() throws OutOfStockException {
+        Order order = sampleOrder();
+        ByteBuffer encoded = encode(order);
+        ProductCatalog remote = new ProductCatalog();
+        remote.register("Laptop", 1000.0, 10);
+        remote.register("Book", 25.5, 100);
+
+        Order decoded = OrderCodec.decode(encoded, remote);
+
+        assertEquals(order.getId(), decoded.getId());
+        assertEquals(order.getShoppingCart().getId(), decoded.getShoppingCart().getId());
+        assertEquals(order.getTotalAmount(), decoded.getTotalAmount());
+        assertEquals(12.5, decoded.getDiscount(), 0.0);
+        assertEquals(3, decoded.getShoppingCart().getQuantity(remote.get(book.getSku())));
+        assertEquals(8, remote.getStock(laptop.getSku()));
+    }
+
+    @Test
+    @DisplayName("Test de restitution du stock en cas de rupture au décodage")
+    void testDecodeOutOfStockReleases() throws OutOfStockException {
+        ByteBuffer encoded = encode(sampleOrder());
+        ProductCatalog remote = new ProductCatalog();
+        remote.register("Laptop", 1000.0, 10);
+        remote.register("Book", 25.5, 1);
+
+        assertThrows(OutOfStockException.class, () -> OrderCodec.decode(encoded, remote));
+        assertEquals(10, remote.getStock(0));
+        assertEquals(1, remote.getStock(1));
+    }
+
+    @Test
+    @DisplayName("Test de restitution du stock sur une entrée malformée")
+    void testDecodeMalformedReleases() throws OutOfStockException {
+        ByteBuffer encoded = encode(sampleOrder());
+        ProductCatalog remote = new ProductCatalog();
+        remote.register("Laptop", 1000.0, 10);
+        remote.register("Book", 25.5, 100);
+
+        // Buffer tronqué au milieu de la dernière ligne : la première était déjà réservée
+        ByteBuffer truncated = encoded.duplicate().limit(encoded.limit() - 1);
+        assertThrows(BufferUnderflowException.class, () -> OrderCodec.decode(truncated, remote));
+        assertEquals(10, remote.getStock(0));
+        assertEquals(100, remote.getStock(1));
+
+        // SKU inconnu du catalogue local
+        ProductCatalog partial = new ProductCatalog();
+        partial.register("Laptop", 1000.0, 10);
+        assertThrows(IllegalArgumentException.class, () -> OrderCodec.decode(encoded.duplicate(), partial));
+        assertEquals(10, partial.getStock(0));
+    }
+
+    @Test
+    @DisplayName("Test de refus d'un prix différent du catalogue local")
+    void testDecodePriceMismatch() throws OutOfStockException {
+        ByteBuffer encoded = encode(sampleOrder());
+        ProductCatalog repriced = new ProductCatalog();
+        repriced.register("Laptop", 1000.0, 10);
+        repriced.register("Book", 19.9, 100);
+
+        // Le livre a changé de prix depuis l'encodage : refus plutôt qu'un autre total
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> OrderCodec.decode(encoded, repriced));
+        assertTrue(e.getMessage().contains("Book"));
+        assertEquals(10, repriced.getStock(0));
+        assertEquals(100, repriced.getStock(1));
+    }
+
+    @Test
+    @DisplayName("Test de compacité de l'encodage")
+    void testEncodingIsCompact() throws OutOfStockException {
+        ShoppingCart cart = new ShoppingCart();
+        Order order = new Order(cart, 0.0);
+        cart.addProduct(book);
+
+        // version + 2 ids + devise (2) + remise + frais + nb lignes + sku + quantité + prix (2)
+        assertTrue(OrderCodec.encodedSize(order) <= 3 + Long.toString(order.getId()).length() * 2 + 8);
+        assertEquals(OrderCodec.encodedSize(order), encode(order).remaining());
+    }
+
+    @Test
+    @DisplayName("Test de dépassement du buffer")
+    void testBufferOverflow() throws OutOfStockException {
+        Order order = sampleOrder();
+        ByteBuffer small = ByteBuffer.allocate(OrderCodec.encodedSize(order) - 1);
+        assertThrows(BufferOverflowException.class, () -> OrderCodec.encode(order, small));
+    }
+
+    @Test
+    @DisplayName("Test de refus d'une version inconnue")
+    void testUnknownVersion() throws OutOfStockException {
+        ByteBuffer encoded = encode(sampleOrder());
+        encoded.put(0, (byte) 99);
+        assertThrows(IllegalArgumentException.class, () -> OrderCodec.decode(encoded, catalog));
+    }
+
+    @Test
+    @DisplayName("Test de refus des produits hors catalogue")
+    void testProductWithoutSku() throws OutOfStockException {
+        ShoppingCart cart = new ShoppingCart();
+        Order order = new Order(cart, 4.90);
+        cart.addProduct(new Product("Libre", 1.0, 1));
+        assertThrows(IllegalArgumentException.class, () -> OrderCodec.encodedSize(order));
+    }
+
+    @Test
+    @DisplayName("Test des entiers variables signés et non signés")
+    void testVarint() {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        long[] values = {0, 1, 127, 128, 300, Long.MAX_VALUE, -1, Long.MIN_VALUE};
+        for (long value : values) {
+            buffer.clear();
+            Varint.putSigned(buffer, value);
+            assertEquals(Varint.sizeOfSigned(value), buffer.position());
+            buffer.flip();
+            assertEquals(value, Varint.getSigned(buffer));
+        }
+        buffer.clear();
+        Varint.putUnsigned(buffer, 300);
+        assertEquals(2, buffer.position());
+        buffer.flip();
+        assertEquals(300, Varint.getUnsigned(buffer));
+    }
+}
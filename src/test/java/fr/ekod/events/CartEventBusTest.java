@@ -0,0 +1,218 @@
+package fr.ekod.events;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import fr.ekod.Order;
+import fr.ekod.Product;
+import fr.ekod.ShoppingCart;
+import fr.ekod.exceptions.OutOfStockException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests de la classe CartEventBus")
+public class CartEventBusTest {
+
+    private Product laptop;
+    private Product book;
+
+    @BeforeEach
+    void setUp() {
+        laptop = new Product("Laptop", 1000.0, 100);
+        book = new Product("Book", 25.0, 1000);
+    }
+
+    @Test
+    @DisplayName("Test d'un exécuteur qui refuse la livraison")
+    void testRejectedExecution() throws OutOfStockException {
+        AtomicInteger refusals = new AtomicInteger(1);
+        CartEventBus bus = new CartEventBus(task -> {
+            if (refusals.getAndDecrement() > 0) {
+                throw new RejectedExecutionException("exécuteur arrêté");
+            }
+            task.run();
+        });
+        List<List<CartChange>> batches = new ArrayList<>();
+        bus.subscribe(batches::add);
+        ShoppingCart cart = new ShoppingCart();
+        cart.setEventBus(bus);
+
+        // Le refus ne remonte pas au panier, dont la modification est appliquée
+        cart.addProduct(book, 2);
+        assertEquals(2, cart.getQuantity(book));
+        assertEquals(1, bus.getPendingCount());
+        assertEquals(1, bus.getRejectedCount());
+
+        // L'événement en attente part avec le suivant
+        cart.addProduct(laptop);
+        assertEquals(0, bus.getPendingCount());
+        assertEquals(1, batches.size());
+        assertEquals(Map.of(book, 2, laptop, 1), batches.get(0).get(0).getQuantityChanges());
+    }
+
+    @Test
+    @DisplayName("Test de regroupement des événements au point de validation")
+    void testSynchronousCoalescing() throws OutOfStockException {
+        CartEventBus bus = new CartEventBus();
+        List<List<CartChange>> batches = new ArrayList<>();
+        bus.subscribe(batches::add);
+        ShoppingCart cart = new ShoppingCart();
+        cart.setEventBus(bus);
+
+        cart.addProduct(book, 3);
+        cart.addProduct(laptop);
+        cart.removeProduct(book);
+        cart.addProduct(laptop);
+        cart.removeProduct(laptop, 2);
+        assertTrue(batches.isEmpty());
+        assertEquals(5, bus.getPendingCount());
+
+        assertEquals(5, bus.flush());
+        assertEquals(1, batches.size());
+        CartChange change = batches.get(0).get(0);
+        assertSame(cart, change.getCart());
+        assertEquals(5, change.getEventCount());
+        assertEquals(Map.of(book, 2), change.getQuantityChanges());
+
+        assertEquals(0, bus.flush());
+        assertEquals(1, batches.size());
+    }
+
+    @Test
+    @DisplayName("Test d'un changement par panier et de plusieurs abonnés")
+    void testSeveralCartsAndListeners() throws OutOfStockException {
+        CartEventBus bus = new CartEventBus();
+        AtomicInteger first = new AtomicInteger();
+        AtomicInteger second = new AtomicInteger();
+        CartChangeListener counter = changes -> first.addAndGet(changes.size());
+        bus.subscribe(counter);
+        bus.subscribe(changes -> second.addAndGet(changes.size()));
+        ShoppingCart a = new ShoppingCart();
+        ShoppingCart b = new ShoppingCart();
+        a.setEventBus(bus);
+        b.setEventBus(bus);
+
+        a.addProduct(book);
+        b.addProduct(book);
+        a.addProduct(laptop);
+        bus.flush();
+        assertEquals(2, first.get());
+        assertEquals(2, second.get());
+
+        assertTrue(bus.unsubscribe(counter));
+        a.addProduct(book);
+        bus.flush();
+        assertEquals(2, first.get());
+        assertEquals(3, second.get());
+    }
+
+    @Test
+    @DisplayName("Test de la commande toujours à jour sans attendre le bus")
+    void testOrderStillUpToDate() throws OutOfStockException {
+        CartEventBus bus = new CartEventBus();
+        ShoppingCart cart = new ShoppingCart();
+        cart.setEventBus(bus);
+        Order order = new Order(cart, 0.0);
+
+        cart.addProduct(book, 2);
+        assertEquals(50.0, order.getTotalPrice(), 0.001);
+        assertEquals(1, bus.getPendingCount());
+    }
+
+    @Test
+    @DisplayName("Test de livraison asynchrone par lots")
+    void testAsynchronousDelivery() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CartEventBus bus = new CartEventBus(executor);
+            assertTrue(bus.isAsynchronous());
+            List<CartChange> received = new CopyOnWriteArrayList<>();
+            AtomicInteger events = new AtomicInteger();
+            CountDownLatch done = new CountDownLatch(1);
+            bus.subscribe(changes -> {
+                for (CartChange change : changes) {
+                    received.add(change);
+                    if (events.addAndGet(change.getEventCount()) == 1000) {
+                        done.countDown();
+                    }
+                }
+            });
+            ShoppingCart cart = new ShoppingCart();
+            cart.setEventBus(bus);
+
+            for (int i = 0; i < 1000; i++) {
+                cart.addProduct(book);
+            }
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            int total = 0;
+            for (CartChange change : received) {
+                total += change.getQuantityChanges().getOrDefault(book, 0);
+            }
+            assertEquals(1000, total);
+            assertTrue(received.size() <= 1000);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Test d'un abonné en échec")
+    void testFailingListener() throws OutOfStockException {
+        CartEventBus bus = new CartEventBus();
+        AtomicInteger delivered = new AtomicInteger();
+        bus.subscribe(changes -> {
+            throw new IllegalStateException("abonné en panne");
+        });
+        bus.subscribe(changes -> delivered.incrementAndGet());
+        ShoppingCart cart = new ShoppingCart();
+        cart.setEventBus(bus);
+        cart.addProduct(book);
+
+        assertThrows(IllegalStateException.class, bus::flush);
+        assertEquals(1, delivered.get());
+        assertEquals(0, bus.getPendingCount());
+    }
+
+    @Test
+    @DisplayName("Test de publication concurrente")
+    void testConcurrentPublish() throws Exception {
+        CartEventBus bus = new CartEventBus();
+        AtomicInteger events = new AtomicInteger();
+        bus.subscribe(changes -> changes.forEach(change -> events.addAndGet(change.getEventCount())));
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                ShoppingCart cart = new ShoppingCart();
+                cart.setEventBus(bus);
+                start.await();
+                for (int i = 0; i < 1000; i++) {
+                    cart.addProduct(book);
+                    cart.removeProduct(book);
+                    if (i % 100 == 0) {
+                        bus.flush();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        bus.flush();
+        assertEquals(threads * 2000, events.get());
+        assertEquals(1000, book.getStock());
+    }
+}
@@ -0,0 +1,145 @@
+package fr.ekod.expiry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import fr.ekod.Order;
+import fr.ekod.Product;
+import fr.ekod.ShoppingCart;
+import fr.ekod.exceptions.OutOfStockException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests de la classe CartExpiryScheduler")
+public class CartExpirySchedulerTest {
+
+    private static final long TTL = Duration.ofMinutes(15).toNanos();
+
+    private CartExpiryScheduler scheduler;
+    private Product laptop;
+    private Product book;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new CartExpiryScheduler(Duration.ofMinutes(15), Duration.ofSeconds(1));
+        laptop = new Product("Laptop", 1000.0, 5);
+        book = new Product("Book", 25.0, 20);
+    }
+
+    @Test
+    @DisplayName("Test de restitution du stock d'un panier abandonné")
+    void testAbandonedCartReleasesStock() throws OutOfStockException {
+        ShoppingCart cart = new ShoppingCart();
+        Order order = new Order(cart, 0.0);
+        cart.addProduct(laptop, 2);
+        cart.addProduct(book, 3);
+        List<ShoppingCart> expired = new ArrayList<>();
+        scheduler.setExpiryListener(expired::add);
+        scheduler.track(cart);
+        long start = cart.getLastModifiedNanos();
+
+        assertEquals(0, scheduler.expireDue(start + TTL / 2));
+        assertEquals(3, laptop.getStock());
+
+        assertEquals(1, scheduler.expireDue(start + TTL + Duration.ofSeconds(2).toNanos()));
+        assertEquals(5, laptop.getStock());
+        assertEquals(20, book.getStock());
+        assertEquals(0, cart.getNumberOfItems());
+        assertEquals(0.0, order.getTotalPrice(), 0.001);
+        assertEquals(List.of(cart), expired);
+        assertFalse(scheduler.isTracked(cart));
+        assertEquals(1, scheduler.getExpiredCount());
+    }
+
+    @Test
+    @DisplayName("Test de prolongation de la réservation par l'activité du panier")
+    void testActivityExtendsReservation() throws Exception {
+        long ttl = Duration.ofMillis(200).toNanos();
+        CartExpiryScheduler quick = new CartExpiryScheduler(Duration.ofMillis(200), Duration.ofMillis(10));
+        ShoppingCart cart = new ShoppingCart();
+        cart.addProduct(book);
+        quick.track(cart);
+        long start = cart.getLastModifiedNanos();
+
+        // Activité avant l'échéance : le panier est replanifié, pas vidé
+        Thread.sleep(100);
+        cart.addProduct(book);
+        long touched = cart.getLastModifiedNanos();
+        assertEquals(0, quick.expireDue(start + ttl + Duration.ofMillis(20).toNanos()));
+        assertEquals(2, cart.getNumberOfItems());
+        assertTrue(quick.isTracked(cart));
+
+        assertEquals(1, quick.expireDue(touched + ttl + Duration.ofMillis(20).toNanos()));
+        assertEquals(20, book.getStock());
+    }
+
+    @Test
+    @DisplayName("Test de fin de suivi d'un panier commandé")
+    void testUntrack() throws OutOfStockException {
+        ShoppingCart cart = new ShoppingCart();
+        cart.addProduct(book);
+        scheduler.track(cart);
+        assertEquals(1, scheduler.getTrackedCount());
+        assertTrue(scheduler.untrack(cart));
+        assertFalse(scheduler.untrack(cart));
+
+        assertEquals(0, scheduler.expireDue(cart.getLastModifiedNanos() + 2 * TTL));
+        assertEquals(19, book.getStock());
+    }
+
+    @Test
+    @DisplayName("Test de nombreux paniers suivis")
+    void testManyCarts() throws OutOfStockException {
+        Product stock = new Product("Stock", 1.0, 100_000);
+        List<ShoppingCart> carts = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            ShoppingCart cart = new ShoppingCart();
+            cart.addProduct(stock);
+            scheduler.track(cart);
+            carts.add(cart);
+        }
+        assertEquals(0, stock.getStock());
+        long latest = carts.get(carts.size() - 1).getLastModifiedNanos();
+
+        assertEquals(100_000, scheduler.expireDue(latest + TTL + Duration.ofSeconds(2).toNanos()));
+        assertEquals(100_000, stock.getStock());
+        assertEquals(0, scheduler.getTrackedCount());
+    }
+
+    @Test
+    @DisplayName("Test d'expiration en tâche de fond")
+    void testBackgroundExpiry() throws Exception {
+        try (CartExpiryScheduler fast = new CartExpiryScheduler(Duration.ofMillis(50), Duration.ofMillis(5))) {
+            CountDownLatch done = new CountDownLatch(1);
+            fast.setExpiryListener(cart -> done.countDown());
+            ShoppingCart cart = new ShoppingCart();
+            cart.addProduct(laptop);
+            fast.track(cart);
+            fast.start();
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(5, laptop.getStock());
+            assertNull(fast.getLastFailure());
+        }
+    }
+
+    @Test
+    @DisplayName("Test du vidage conditionnel du panier")
+    void testClearIfUnchangedSince() throws OutOfStockException {
+        ShoppingCart cart = new ShoppingCart();
+        cart.addProduct(book, 4);
+        long modified = cart.getLastModifiedNanos();
+
+        assertFalse(cart.clearIfUnchangedSince(modified - 1));
+        assertEquals(4, cart.getNumberOfItems());
+        assertTrue(cart.clearIfUnchangedSince(modified));
+        assertEquals(0, cart.getNumberOfItems());
+        assertEquals(20, book.getStock());
+    }
+}
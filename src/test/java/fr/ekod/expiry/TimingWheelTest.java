@@ -0,0 +1,82 @@
+package fr.ekod.expiry;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests de la classe TimingWheel")
+public class TimingWheelTest {
+
+    @Test
+    @DisplayName("Test de déclenchement au tick exact sur tous les niveaux")
+    void testExactDeadlines() {
+        TimingWheel<Long> wheel = new TimingWheel<>(0);
+        long[] deadlines = {1, 63, 64, 65, 127, 4095, 4096, 4097, 300_000, 262_144, 5_000_000};
+        for (long deadline : deadlines) {
+            wheel.schedule(deadline, deadline);
+        }
+        assertEquals(deadlines.length, wheel.size());
+
+        List<Long> expired = new ArrayList<>();
+        long last = 0;
+        for (long tick = 1; tick <= 5_000_000; tick++) {
+            wheel.advanceTo(tick, expired);
+            for (long value : expired) {
+                assertEquals(tick, value);
+                last = value;
+            }
+            expired.clear();
+        }
+        assertEquals(5_000_000, last);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    @DisplayName("Test d'échéances aléatoires avec avance par sauts")
+    void testRandomDeadlines() {
+        Random random = new Random(42);
+        TimingWheel<Long> wheel = new TimingWheel<>(1000);
+        for (int i = 0; i < 10_000; i++) {
+            long deadline = 1000 + 1 + random.nextInt(1_000_000);
+            wheel.schedule(deadline, deadline);
+        }
+        List<Long> expired = new ArrayList<>();
+        long tick = 1000;
+        int count = 0;
+        while (tick < 1_002_000) {
+            tick += 1 + random.nextInt(500);
+            wheel.advanceTo(tick, expired);
+            for (long value : expired) {
+                assertTrue(value <= tick);
+                assertTrue(value > tick - 500);
+            }
+            count += expired.size();
+            expired.clear();
+        }
+        assertEquals(10_000, count);
+    }
+
+    @Test
+    @DisplayName("Test d'annulation et d'échéances passées")
+    void testCancelAndPastDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(100);
+        TimingWheel.Node<String> cancelled = wheel.schedule("annulé", 150);
+        wheel.schedule("passé", 10);
+        wheel.schedule("lointain", 100 + (1L << 30));
+
+        assertTrue(wheel.cancel(cancelled));
+        assertFalse(wheel.cancel(cancelled));
+
+        List<String> expired = new ArrayList<>();
+        wheel.advanceTo(101, expired);
+        assertEquals(List.of("passé"), expired);
+        wheel.advanceTo(200, expired);
+        assertEquals(List.of("passé"), expired);
+        assertEquals(1, wheel.size());
+    }
+}
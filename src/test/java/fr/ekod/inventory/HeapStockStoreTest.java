@@ -0,0 +1,49 @@
+package fr.ekod.inventory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests de la classe HeapStockStore")
+public class HeapStockStoreTest {
+
+    private HeapStockStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new HeapStockStore();
+    }
+
+    @Test
+    @DisplayName("Test d'allocation d'emplacements sur plusieurs pages")
+    void testAllocateAcrossPages() {
+        for (int i = 0; i < 40_000; i++) {
+            assertEquals(i, store.allocate(i));
+        }
+        assertEquals(40_000, store.size());
+        assertEquals(39_999, store.get(39_999));
+        assertEquals(16_384, store.get(16_384));
+    }
+
+    @Test
+    @DisplayName("Test de réservation et libération d'un emplacement")
+    void testReserveAndRelease() {
+        int slot = store.allocate(3);
+        assertTrue(store.tryReserve(slot, 2));
+        assertFalse(store.tryReserve(slot, 2));
+        assertEquals(1, store.get(slot));
+
+        store.release(slot, 4);
+        assertEquals(5, store.get(slot));
+    }
+
+    @Test
+    @DisplayName("Test d'accès à un emplacement inconnu")
+    void testUnknownSlot() {
+        store.allocate(1);
+        assertThrows(IllegalArgumentException.class, () -> store.get(1));
+        assertThrows(IllegalArgumentException.class, () -> store.tryReserve(-1, 1));
+    }
+}
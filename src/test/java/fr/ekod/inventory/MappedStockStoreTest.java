@@ -0,0 +1,130 @@
+package fr.ekod.inventory;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import fr.ekod.Money;
+import fr.ekod.Product;
+import fr.ekod.ProductCatalog;
+import fr.ekod.ShoppingCart;
+import fr.ekod.exceptions.OutOfStockException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests de la classe MappedStockStore")
+public class MappedStockStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Test de persistance du stock après réouverture")
+    void testStockSurvivesReopen() throws IOException {
+        Path file = directory.resolve("stock.bin");
+        try (MappedStockStore store = MappedStockStore.open(file, 100)) {
+            store.allocate(10);
+            store.allocate(20);
+            assertTrue(store.tryReserve(1, 5));
+            store.release(0, 2);
+        }
+
+        try (MappedStockStore store = MappedStockStore.open(file, 100)) {
+            assertEquals(2, store.size());
+            assertEquals(12, store.get(0));
+            assertEquals(15, store.get(1));
+            assertEquals(100, store.capacity());
+        }
+    }
+
+    @Test
+    @DisplayName("Test de redémarrage d'un catalogue sur le stock persisté")
+    void testCatalogRestore() throws IOException, OutOfStockException {
+        Path file = directory.resolve("stock.bin");
+        try (MappedStockStore store = MappedStockStore.open(file, 10)) {
+            ProductCatalog catalog = new ProductCatalog(Money.EUR, store);
+            Product laptop = catalog.register("Laptop", 1000.0, 5);
+            catalog.register("Phone", 500.0, 10);
+            new ShoppingCart().addProduct(laptop, 3);
+        }
+
+        try (MappedStockStore store = MappedStockStore.open(file, 10)) {
+            ProductCatalog catalog = new ProductCatalog(Money.EUR, store);
+            // Les produits déjà persistés doivent être rattachés et non recréés
+            assertThrows(IllegalStateException.class, () -> catalog.register("Laptop", 1000.0, 5));
+            Product laptop = catalog.restore("Laptop", Money.of(1000.0));
+            Product phone = catalog.restore("Phone", Money.of(500.0));
+            assertEquals(2, laptop.getStock());
+            assertEquals(10, phone.getStock());
+            assertThrows(IllegalStateException.class, () -> catalog.restore("Book", Money.of(25.0)));
+
+            Product book = catalog.register("Book", 25.0, 20);
+            assertEquals(2, book.getSku());
+            assertEquals(20, store.get(2));
+        }
+    }
+
+    @Test
+    @DisplayName("Test de capacité maximale du fichier")
+    void testCapacityExceeded() throws IOException {
+        try (MappedStockStore store = MappedStockStore.open(directory.resolve("stock.bin"), 2)) {
+            store.allocate(1);
+            store.allocate(1);
+            assertThrows(IllegalStateException.class, () -> store.allocate(1));
+            assertThrows(IllegalArgumentException.class, () -> store.get(2));
+        }
+    }
+
+    @Test
+    @DisplayName("Test de refus d'un fichier invalide")
+    void testInvalidFile() throws IOException {
+        Path file = directory.resolve("stock.bin");
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16});
+        assertThrows(IOException.class, () -> MappedStockStore.open(file, 10));
+
+        Path truncated = directory.resolve("tronque.bin");
+        Files.write(truncated, new byte[]{1, 2});
+        assertThrows(IOException.class, () -> MappedStockStore.open(truncated, 10));
+    }
+
+    @Test
+    @DisplayName("Test de réservations concurrentes sur le fichier projeté")
+    void testConcurrentReservations() throws Exception {
+        try (MappedStockStore store = MappedStockStore.open(directory.resolve("stock.bin"), 4)) {
+            int slot = store.allocate(1000);
+            ExecutorService executor = Executors.newFixedThreadPool(16);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < 16; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    int reserved = 0;
+                    for (int i = 0; i < 200; i++) {
+                        if (store.tryReserve(slot, 1)) {
+                            reserved++;
+                        }
+                    }
+                    return reserved;
+                }));
+            }
+            start.countDown();
+            int total = 0;
+            for (Future<Integer> result : results) {
+                total += result.get();
+            }
+            executor.shutdown();
+
+            assertEquals(1000, total);
+            assertEquals(0, store.get(slot));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package fr.ekod.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import fr.ekod.Invoice;
+import fr.ekod.Money;
+import fr.ekod.Order;
+import fr.ekod.Product;
+import fr.ekod.ShoppingCart;
+import fr.ekod.exceptions.InvalidDiscountCodeException;
+import fr.ekod.exceptions.OutOfStockException;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Les métriques sont globales au processus : les tests comparent des écarts, pas des valeurs absolues
+@DisplayName("Tests de la classe CheckoutMetrics")
+public class CheckoutMetricsTest {
+    private final CheckoutMetrics metrics = CheckoutMetrics.get();
+
+    @Test
+    @DisplayName("Test de mesure des opérations du panier")
+    void testCartOperations() throws OutOfStockException {
+        long adds = metrics.getAddProductLatency().getCount();
+        long removes = metrics.getRemoveProductLatency().getCount();
+        long stockOuts = metrics.getStockOutRejections();
+
+        Product product = new Product("Laptop", 1000.0, 1);
+        ShoppingCart cart = new ShoppingCart();
+        cart.addProduct(product);
+        assertThrows(OutOfStockException.class, () -> cart.addProduct(product));
+        cart.removeProduct(product);
+
+        assertTrue(metrics.getAddProductLatency().getCount() >= adds + 2);
+        assertTrue(metrics.getRemoveProductLatency().getCount() >= removes + 1);
+        assertTrue(metrics.getStockOutRejections() >= stockOuts + 1);
+    }
+
+    @Test
+    @DisplayName("Test du vidage du panier, hors mesure des retraits")
+    void testClearIsNotRecorded() throws OutOfStockException {
+        ShoppingCart cart = new ShoppingCart();
+        cart.addProduct(new Product("Book", 25.0, 10), 3);
+        cart.addProduct(new Product("Phone", 500.0, 10));
+        long removes = metrics.getRemoveProductLatency().getCount();
+
+        cart.clear();
+
+        assertEquals(0, cart.getNumberOfItems());
+        assertEquals(removes, metrics.getRemoveProductLatency().getCount());
+    }
+
+    @Test
+    @DisplayName("Test de mesure du total, de la facture et des refus de code")
+    void testOrderAndInvoice() throws OutOfStockException {
+        long totals = metrics.getCalculateTotalLatency().getCount();
+        long invoices = metrics.getGenerateInvoiceLatency().getCount();
+        long rejections = metrics.getDiscountRejections();
+
+        ShoppingCart cart = new ShoppingCart();
+        cart.addProduct(new Product("Book", 25.0, 10));
+        Order order = new Order(cart, 5.0);
+        assertEquals(30.0, order.getTotalPrice());
+        new Invoice(order).generateInvoice();
+        assertThrows(InvalidDiscountCodeException.class, () -> order.applyDiscountCode("INCONNU"));
+
+        assertTrue(metrics.getCalculateTotalLatency().getCount() >= totals + 1);
+        assertTrue(metrics.getGenerateInvoiceLatency().getCount() >= invoices + 1);
+        assertTrue(metrics.getDiscountRejections() >= rejections + 1);
+    }
+
+    @Test
+    @DisplayName("Test de l'export texte")
+    void testDump() {
+        String dump = metrics.dump();
+        assertTrue(dump.startsWith("addProduct count="));
+        assertTrue(dump.contains("\ngenerateInvoice count="));
+        assertTrue(dump.contains("\nstockOutRejections "));
+        assertTrue(dump.endsWith("discountRejections " + metrics.getDiscountRejections() + "\n"));
+    }
+
+    @Test
+    @DisplayName("Test de l'exposition JMX")
+    void testJmx() throws Exception {
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        metrics.registerMBeans(server);
+        try {
+            ObjectName counters = new ObjectName("fr.ekod:type=CheckoutMetrics");
+            assertEquals(metrics.getStockOutRejections(), server.getAttribute(counters, "StockOutRejections"));
+            ObjectName latency = new ObjectName("fr.ekod:type=CheckoutMetrics,operation=addProduct");
+            assertEquals(metrics.getAddProductLatency().getMaxNanos(), server.getAttribute(latency, "MaxNanos"));
+            assertTrue(server.invoke(counters, "dump", null, null).toString().contains("calculateTotal"));
+        } finally {
+            metrics.unregisterMBeans(server);
+        }
+        assertFalse(server.isRegistered(new ObjectName("fr.ekod:type=CheckoutMetrics")));
+    }
+}
@@ -0,0 +1,89 @@
+package fr.ekod.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests de la classe LatencyHistogram")
+public class LatencyHistogramTest {
+
+    @Test
+    @DisplayName("Test de la précision des seaux")
+    void testBucketPrecision() {
+        for (long value = 0; value < 10_000_000; value = value * 3 / 2 + 1) {
+            int index = LatencyHistogram.indexOf(value);
+            long high = LatencyHistogram.highestValueIn(index);
+            assertTrue(high >= value);
+            // Erreur relative bornée à 1/32
+            assertTrue(high - value <= value / 32, "valeur " + value);
+            if (index > 0) {
+                assertTrue(LatencyHistogram.highestValueIn(index - 1) < value);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Test des percentiles, de la moyenne et du maximum")
+    void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1_000L);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500_500.0, histogram.getMeanNanos(), 0.001);
+        assertEquals(1_000_000, histogram.getMaxNanos());
+        assertEquals(500_000, histogram.getMedianNanos(), 500_000 / 32.0);
+        assertEquals(990_000, histogram.get99thPercentileNanos(), 990_000 / 32.0);
+        assertEquals(1_000_000, histogram.getValueAtPercentile(100));
+        assertThrows(IllegalArgumentException.class, () -> histogram.getValueAtPercentile(101));
+    }
+
+    @Test
+    @DisplayName("Test des valeurs hors plage et de la remise à zéro")
+    void testOutOfRangeAndReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getMedianNanos());
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        assertEquals(LatencyHistogram.MAX_TRACKABLE_NANOS, histogram.getMaxNanos());
+        assertEquals(LatencyHistogram.MAX_TRACKABLE_NANOS, histogram.getValueAtPercentile(100));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMaxNanos());
+        assertEquals(0.0, histogram.getMeanNanos());
+    }
+
+    @Test
+    @DisplayName("Test d'enregistrement concurrent")
+    void testConcurrentRecording() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    histogram.record(i);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertEquals(threads * 10_000, histogram.getCount());
+        assertEquals(9_999, histogram.getMaxNanos());
+        // Les seaux sont additionnés sur toutes les bandes
+        long median = histogram.getMedianNanos();
+        assertTrue(median >= 4_999 && median <= 4_999 + 4_999 / 32, "médiane : " + median);
+    }
+}
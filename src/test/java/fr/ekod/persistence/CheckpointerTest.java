@@ -0,0 +1,176 @@
+package fr.ekod.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import fr.ekod.Order;
+import fr.ekod.ProductCatalog;
+import fr.ekod.ShoppingCart;
+import fr.ekod.exceptions.OutOfStockException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static fr.ekod.persistence.TestCatalogs.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests de la classe Checkpointer")
+public class CheckpointerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Test d'instantané et de compactage des segments couverts")
+    void testCheckpointCompactsSegments() throws IOException, OutOfStockException {
+        ProductCatalog catalog = newCatalog();
+        ShoppingCart cart = new ShoppingCart();
+        try (WriteAheadLog wal = WriteAheadLog.open(directory, 512)) {
+            cart.setJournal(wal);
+            Order order = new Order(cart, 5.0);
+            for (int i = 0; i < 200; i++) {
+                cart.addProduct(catalog.get(BOOK));
+            }
+            order.setDiscount(10.0);
+            assertTrue(WalFormat.segments(directory).size() > 5);
+
+            Checkpointer checkpointer = new Checkpointer(wal);
+            assertEquals(202, checkpointer.checkpoint());
+            // Seul le segment en cours subsiste, vide, à côté de l'instantané
+            assertEquals(1, WalFormat.segments(directory).size());
+            assertEquals(1, SnapshotFile.list(directory).size());
+
+            // Mutations postérieures : reprises depuis le journal
+            cart.addProduct(catalog.get(LAPTOP), 2);
+            cart.removeProduct(catalog.get(BOOK), 50);
+
+            ProductCatalog restarted = newCatalog();
+            Recovery recovery = Recovery.recover(directory, restarted);
+            ShoppingCart recovered = recovery.getCarts().get(cart.getId());
+            assertEquals(150, recovered.getQuantity(restarted.get(BOOK)));
+            assertEquals(2, recovered.getQuantity(restarted.get(LAPTOP)));
+            assertEquals(10.0, recovery.getOrders().get(order.getId()).getDiscount());
+            assertEquals(204, recovery.getLastLsn());
+
+            // Un nouveau point de contrôle remplace l'ancien instantané
+            assertEquals(204, checkpointer.checkpoint());
+            assertEquals(List.of(SnapshotFile.path(directory, 204)), SnapshotFile.list(directory));
+        }
+    }
+
+    @Test
+    @DisplayName("Test de point de contrôle sans nouvel enregistrement")
+    void testCheckpointWithoutRecords() throws IOException {
+        try (WriteAheadLog wal = WriteAheadLog.open(directory)) {
+            assertEquals(0, new Checkpointer(wal).checkpoint());
+            assertTrue(SnapshotFile.list(directory).isEmpty());
+        }
+    }
+
+    @Test
+    @DisplayName("Test de points de contrôle en arrière-plan pendant les écritures")
+    void testBackgroundCheckpoints() throws Exception {
+        ProductCatalog catalog = newCatalog();
+        int threads = 8;
+        int addsPerThread = 300;
+        try (WriteAheadLog wal = WriteAheadLog.open(directory, 1024)) {
+            Checkpointer checkpointer = new Checkpointer(wal);
+            try {
+                checkpointer.start(Duration.ofMillis(5));
+                ExecutorService executor = Executors.newFixedThreadPool(threads);
+                List<Future<?>> results = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    results.add(executor.submit(() -> {
+                        ShoppingCart cart = new ShoppingCart();
+                        cart.setJournal(wal);
+                        for (int i = 0; i < addsPerThread; i++) {
+                            cart.addProduct(catalog.get(BOOK));
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> result : results) {
+                    result.get();
+                }
+                executor.shutdown();
+            } finally {
+                checkpointer.close();
+            }
+            // Dernier point de contrôle une fois le thread d'arrière-plan arrêté
+            checkpointer.checkpoint();
+        }
+
+        ProductCatalog restarted = newCatalog();
+        Recovery recovery = Recovery.recover(directory, restarted);
+        assertEquals(threads, recovery.getCarts().size());
+        assertEquals(BOOK_STOCK - threads * addsPerThread, restarted.getStock(BOOK));
+    }
+
+    @Test
+    @DisplayName("Test de l'oubli des paniers vidés sans commande")
+    void testEmptiedCartsAreDropped() throws IOException, OutOfStockException {
+        ProductCatalog catalog = newCatalog();
+        ShoppingCart abandoned = new ShoppingCart();
+        ShoppingCart ordered = new ShoppingCart();
+        try (WriteAheadLog wal = WriteAheadLog.open(directory)) {
+            abandoned.setJournal(wal);
+            ordered.setJournal(wal);
+            abandoned.addProduct(catalog.get(BOOK), 3);
+            abandoned.clear();
+            new Order(ordered, 5.0);
+            ordered.addProduct(catalog.get(BOOK));
+            ordered.removeProduct(catalog.get(BOOK));
+            new Checkpointer(wal).checkpoint();
+        }
+
+        PersistentState state = SnapshotFile.read(SnapshotFile.list(directory).get(0));
+        assertFalse(state.carts.containsKey(abandoned.getId()));
+        assertTrue(state.carts.get(ordered.getId()).ordered);
+        Recovery recovery = Recovery.recover(directory, newCatalog());
+        assertEquals(0, recovery.getCarts().get(ordered.getId()).getNumberOfItems());
+        assertEquals(1, recovery.getOrders().size());
+    }
+
+    @Test
+    @DisplayName("Test de la poursuite des points de contrôle après un échec")
+    void testBackgroundFailureIsReported() throws Exception {
+        WriteAheadLog wal = WriteAheadLog.open(directory);
+        wal.close();
+        try (Checkpointer checkpointer = new Checkpointer(wal)) {
+            checkpointer.start(Duration.ofMillis(5));
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            // Journal fermé : chaque tentative échoue, mais la planification n'est pas annulée
+            while (checkpointer.getFailureCount() < 2 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertTrue(checkpointer.getFailureCount() >= 2);
+            assertTrue(checkpointer.getLastFailure() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    @DisplayName("Test de détection d'un instantané corrompu")
+    void testCorruptedSnapshot() throws IOException, OutOfStockException {
+        ProductCatalog catalog = newCatalog();
+        try (WriteAheadLog wal = WriteAheadLog.open(directory)) {
+            ShoppingCart cart = new ShoppingCart();
+            cart.setJournal(wal);
+            cart.addProduct(catalog.get(LAPTOP));
+            new Checkpointer(wal).checkpoint();
+        }
+        Path snapshot = SnapshotFile.list(directory).get(0);
+        byte[] content = Files.readAllBytes(snapshot);
+        content[content.length - 10] ^= 0x7F;
+        Files.write(snapshot, content);
+
+        // Les segments couverts ont été supprimés : la reprise ne peut pas ignorer l'instantané
+        assertThrows(IOException.class, () -> Recovery.recover(directory, newCatalog()));
+    }
+}
@@ -0,0 +1,44 @@
+package fr.ekod.persistence;
+
+import fr.ekod.Money;
+import fr.ekod.ProductCatalog;
+import fr.ekod.inventory.StockStore;
+
+// Catalogue commun aux tests du journal et des points de contrôle : mêmes produits, mêmes SKU
+final class TestCatalogs {
+    static final int LAPTOP = 0;
+    static final int PHONE = 1;
+    static final int BOOK = 2;
+
+    static final int LAPTOP_STOCK = 50;
+    static final int PHONE_STOCK = 100;
+    static final int BOOK_STOCK = 100_000;
+
+    private TestCatalogs() {
+    }
+
+    static ProductCatalog newCatalog() {
+        return register(new ProductCatalog());
+    }
+
+    // Même catalogue sur le stockage donné, par exemple un MappedStockStore
+    static ProductCatalog newCatalog(StockStore stock) {
+        return register(new ProductCatalog(Money.EUR, stock));
+    }
+
+    // Réouverture d'un stockage persistant : mêmes produits, stock conservé
+    static ProductCatalog reopenCatalog(StockStore stock) {
+        ProductCatalog catalog = new ProductCatalog(Money.EUR, stock);
+        catalog.restore("Laptop", Money.of(1000.0));
+        catalog.restore("Phone", Money.of(500.0));
+        catalog.restore("Book", Money.of(25.0));
+        return catalog;
+    }
+
+    private static ProductCatalog register(ProductCatalog catalog) {
+        catalog.register("Laptop", 1000.0, LAPTOP_STOCK);
+        catalog.register("Phone", 500.0, PHONE_STOCK);
+        catalog.register("Book", 25.0, BOOK_STOCK);
+        return catalog;
+    }
+}
@@ -0,0 +1,293 @@
+package fr.ekod.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import fr.ekod.Money;
+import fr.ekod.Order;
+import fr.ekod.Product;
+import fr.ekod.ProductCatalog;
+import fr.ekod.ShoppingCart;
+import fr.ekod.exceptions.InvalidDiscountCodeException;
+import fr.ekod.exceptions.OutOfStockException;
+import fr.ekod.inventory.MappedStockStore;
+import fr.ekod.pricing.PricingEngine;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static fr.ekod.persistence.TestCatalogs.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests de la classe WriteAheadLog")
+public class WriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Test de reprise des paniers, commandes et stocks")
+    void testRecoverCartsOrdersAndStock() throws IOException, OutOfStockException {
+        ProductCatalog catalog = newCatalog();
+        long cartId;
+        long orderId;
+        try (WriteAheadLog wal = WriteAheadLog.open(directory)) {
+            ShoppingCart cart = new ShoppingCart();
+            cart.setJournal(wal);
+            cart.addProduct(catalog.get(LAPTOP), 2);
+            cart.addProduct(catalog.get(PHONE), 3);
+            Order order = new Order(cart, 10.0);
+            order.setDiscount(15.0);
+            order.setDeliveryFee(4.99);
+            cart.removeProduct(catalog.get(PHONE), 1);
+            cartId = cart.getId();
+            orderId = order.getId();
+            assertEquals(7, wal.getNextLsn());
+        }
+
+        ProductCatalog restarted = newCatalog();
+        Recovery recovery = Recovery.recover(directory, restarted);
+
+        ShoppingCart cart = recovery.getCarts().get(cartId);
+        assertEquals(2, cart.getQuantity(restarted.get(LAPTOP)));
+        assertEquals(2, cart.getQuantity(restarted.get(PHONE)));
+        Order order = recovery.getOrders().get(orderId);
+        assertSame(cart, order.getShoppingCart());
+        assertEquals(15.0, order.getDiscount());
+        assertEquals(4.99, order.getDeliveryFee());
+        assertEquals(3000 * 0.85 + 4.99, order.getTotalPrice(), 0.001);
+        assertEquals(48, restarted.getStock(LAPTOP));
+        assertEquals(98, restarted.getStock(PHONE));
+        assertEquals(6, recovery.getLastLsn());
+    }
+
+    @Test
+    @DisplayName("Test de reprise de la date de création des commandes, par le journal et l'instantané")
+    void testCreatedAtIsRecovered() throws IOException, OutOfStockException {
+        Instant first = Instant.parse("2026-01-15T10:00:00.123Z");
+        Instant second = Instant.parse("2026-01-15T11:30:00Z");
+        long firstId;
+        long secondId;
+        try (WriteAheadLog wal = WriteAheadLog.open(directory)) {
+            ShoppingCart cart = new ShoppingCart();
+            cart.setJournal(wal);
+            cart.addProduct(newCatalog().get(BOOK));
+            firstId = new Order(900_001, cart, Money.ofMinor(0), first).getId();
+            // La première commande n'est plus lue que depuis l'instantané
+            new Checkpointer(wal).checkpoint();
+            ShoppingCart other = new ShoppingCart();
+            other.setJournal(wal);
+            secondId = new Order(900_002, other, Money.ofMinor(0), second).getId();
+        }
+
+        Recovery recovery = Recovery.recover(directory, newCatalog());
+        assertEquals(first, recovery.getOrders().get(firstId).getCreatedAt());
+        assertEquals(second, recovery.getOrders().get(secondId).getCreatedAt());
+    }
+
+    @Test
+    @DisplayName("Test de reprise sans le code promo, qui n'est pas journalisé")
+    void testDiscountCodeIsNotRecovered() throws IOException, OutOfStockException, InvalidDiscountCodeException {
+        ProductCatalog catalog = newCatalog();
+        long orderId;
+        try (WriteAheadLog wal = WriteAheadLog.open(directory)) {
+            ShoppingCart cart = new ShoppingCart();
+            cart.setJournal(wal);
+            cart.addProduct(catalog.get(BOOK), 4);
+            Order order = new Order(cart, 0.0);
+            order.setPricingEngine(PricingEngine.builder(catalog).discountCode("PROMO10", 10).build());
+            order.applyDiscountCode("PROMO10");
+            assertEquals(90.0, order.getTotalPrice(), 0.001);
+            orderId = order.getId();
+        }
+
+        ProductCatalog restarted = newCatalog();
+        Order order = Recovery.recover(directory, restarted).getOrders().get(orderId);
+        // Le moteur de prix n'étant pas persisté, l'appelant le rattache puis réapplique le code
+        assertNull(order.getDiscountCode());
+        assertEquals(100.0, order.getTotalPrice(), 0.001);
+        order.setPricingEngine(PricingEngine.builder(restarted).discountCode("PROMO10", 10).build());
+        order.applyDiscountCode("PROMO10");
+        assertEquals(90.0, order.getTotalPrice(), 0.001);
+    }
+
+    @Test
+    @DisplayName("Test de reprise sur un stock persistant, sans double prélèvement")
+    void testRecoverWithDurableStock() throws IOException, OutOfStockException {
+        Path stockFile = directory.resolve("stock.bin");
+        Path walDirectory = directory.resolve("wal");
+        long cartId;
+        try (MappedStockStore store = MappedStockStore.open(stockFile, 10);
+             WriteAheadLog wal = WriteAheadLog.open(walDirectory)) {
+            ProductCatalog catalog = newCatalog(store);
+            ShoppingCart cart = new ShoppingCart();
+            cart.setJournal(wal);
+            cart.addProduct(catalog.get(LAPTOP), 5);
+            cart.addProduct(catalog.get(BOOK), 4);
+            cartId = cart.getId();
+        }
+
+        try (MappedStockStore store = MappedStockStore.open(stockFile, 10)) {
+            ProductCatalog catalog = reopenCatalog(store);
+            assertTrue(catalog.hasDurableStock());
+
+            // Le stock persisté reflète déjà les réservations : la reprise ne prélève rien
+            ShoppingCart cart = Recovery.recover(walDirectory, catalog).getCarts().get(cartId);
+            assertEquals(5, cart.getQuantity(catalog.get(LAPTOP)));
+            assertEquals(4, cart.getQuantity(catalog.get(BOOK)));
+            assertEquals(LAPTOP_STOCK - 5, catalog.getStock(LAPTOP));
+            assertEquals(BOOK_STOCK - 4, catalog.getStock(BOOK));
+
+            // Les lignes restaurées restituent leur stock normalement
+            cart.removeProduct(catalog.get(BOOK), 4);
+            assertEquals(BOOK_STOCK, catalog.getStock(BOOK));
+        }
+    }
+
+    @Test
+    @DisplayName("Test de troncature d'une fin de journal déchirée")
+    void testTornTailIsTruncated() throws IOException, OutOfStockException {
+        ProductCatalog catalog = newCatalog();
+        ShoppingCart cart = new ShoppingCart();
+        try (WriteAheadLog wal = WriteAheadLog.open(directory)) {
+            cart.setJournal(wal);
+            cart.addProduct(catalog.get(BOOK), 5);
+        }
+        // Simule un enregistrement partiellement écrit lors d'un arrêt brutal
+        Path segment = WalFormat.segments(directory).get(0);
+        Files.write(segment, new byte[]{30, 0, 0, 0, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (WriteAheadLog wal = WriteAheadLog.open(directory)) {
+            assertEquals(2, wal.getNextLsn());
+            cart.setJournal(wal);
+            cart.addProduct(catalog.get(BOOK), 1);
+        }
+
+        Recovery recovery = Recovery.recover(directory, newCatalog());
+        assertEquals(6, recovery.getCarts().get(cart.getId()).getNumberOfItems());
+        assertEquals(2, recovery.getLastLsn());
+    }
+
+    @Test
+    @DisplayName("Test de rotation des segments")
+    void testSegmentRolling() throws IOException, OutOfStockException {
+        ProductCatalog catalog = newCatalog();
+        ShoppingCart cart = new ShoppingCart();
+        try (WriteAheadLog wal = WriteAheadLog.open(directory, 256)) {
+            cart.setJournal(wal);
+            for (int i = 0; i < 100; i++) {
+                cart.addProduct(catalog.get(BOOK));
+            }
+        }
+        assertTrue(WalFormat.segments(directory).size() > 1);
+
+        Recovery recovery = Recovery.recover(directory, newCatalog());
+        assertEquals(100, recovery.getCarts().get(cart.getId()).getNumberOfItems());
+    }
+
+    @Test
+    @DisplayName("Test de validation groupée avec écrivains concurrents")
+    void testGroupCommit() throws Exception {
+        ProductCatalog catalog = newCatalog();
+        int threads = 16;
+        int addsPerThread = 200;
+        try (WriteAheadLog wal = WriteAheadLog.open(directory)) {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    ShoppingCart cart = new ShoppingCart();
+                    cart.setJournal(wal);
+                    start.await();
+                    for (int i = 0; i < addsPerThread; i++) {
+                        cart.addProduct(catalog.get(BOOK));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get();
+            }
+            executor.shutdown();
+
+            // Les fsync sont mutualisés entre écrivains concurrents
+            assertTrue(wal.getSyncCount() < threads * addsPerThread);
+        }
+
+        ProductCatalog restarted = newCatalog();
+        Recovery recovery = Recovery.recover(directory, restarted);
+        assertEquals(threads, recovery.getCarts().size());
+        assertEquals(BOOK_STOCK - threads * addsPerThread, restarted.getStock(BOOK));
+    }
+
+    @Test
+    @DisplayName("Test de refus des produits hors catalogue")
+    void testUncataloguedProduct() throws IOException {
+        Product loose = new Product("Libre", 1.0, 5);
+        try (WriteAheadLog wal = WriteAheadLog.open(directory)) {
+            ShoppingCart cart = new ShoppingCart();
+            cart.setJournal(wal);
+            assertThrows(IllegalArgumentException.class, () -> cart.addProduct(loose));
+            // La mutation est annulée : ni ligne ni stock réservé
+            assertEquals(0, cart.getNumberOfItems());
+            assertEquals(5, loose.getStock());
+        }
+    }
+
+    @Test
+    @DisplayName("Test d'écriture dans un journal fermé")
+    void testClosedLog() throws IOException {
+        WriteAheadLog wal = WriteAheadLog.open(directory);
+        wal.close();
+        ShoppingCart cart = new ShoppingCart();
+        cart.setJournal(wal);
+        ProductCatalog catalog = newCatalog();
+        assertThrows(IllegalStateException.class, () -> cart.addProduct(catalog.get(LAPTOP)));
+        assertEquals(50, catalog.getStock(LAPTOP));
+    }
+
+    @Test
+    @DisplayName("Test d'ajout groupé journalisé en un seul lot")
+    void testAddAllSingleSync() throws IOException, OutOfStockException {
+        ProductCatalog catalog = newCatalog();
+        long cartId;
+        try (WriteAheadLog wal = WriteAheadLog.open(directory)) {
+            ShoppingCart cart = new ShoppingCart();
+            cart.setJournal(wal);
+            Map<Product, Integer> items = new LinkedHashMap<>();
+            items.put(catalog.get(LAPTOP), 1);
+            items.put(catalog.get(PHONE), 2);
+            items.put(catalog.get(BOOK), 3);
+            long syncs = wal.getSyncCount();
+            cart.addAll(items);
+            assertEquals(syncs + 1, wal.getSyncCount());
+            assertEquals(4, wal.getNextLsn());
+
+            // Un produit hors catalogue fait échouer tout l'ajout, sans rien journaliser
+            items.put(new Product("Libre", 1.0, 5), 1);
+            assertThrows(IllegalArgumentException.class, () -> cart.addAll(items));
+            assertEquals(4, wal.getNextLsn());
+            assertEquals(6, cart.getNumberOfItems());
+            assertEquals(49, catalog.getStock(LAPTOP));
+            cartId = cart.getId();
+        }
+
+        ProductCatalog restarted = newCatalog();
+        ShoppingCart cart = Recovery.recover(directory, restarted).getCarts().get(cartId);
+        assertEquals(6, cart.getNumberOfItems());
+        assertEquals(3, cart.getQuantity(restarted.get(BOOK)));
+    }
+}
@@ -0,0 +1,197 @@
+package fr.ekod.pricing;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import fr.ekod.Money;
+import fr.ekod.Order;
+import fr.ekod.Product;
+import fr.ekod.ProductCatalog;
+import fr.ekod.ShoppingCart;
+import fr.ekod.exceptions.InvalidDiscountCodeException;
+import fr.ekod.exceptions.OutOfStockException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests de la classe DiscountCodeRegistry")
+public class DiscountCodeRegistryTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-15T10:00:00Z");
+
+    private DiscountCodeRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new DiscountCodeRegistry(Money.EUR, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    @DisplayName("Test de consommation jusqu'au plafond")
+    void testUsageLimit() throws InvalidDiscountCodeException {
+        registry.register("PROMO10", 10, Money.zero(Money.EUR), 3, null);
+
+        registry.redeem("promo10");
+        registry.redeem("PROMO10");
+        registry.redeem("PROMO10");
+        assertEquals(3, registry.getUses("PROMO10"));
+        assertEquals(0, registry.getRemainingUses("PROMO10"));
+        assertFalse(registry.isValid("PROMO10"));
+        assertThrows(InvalidDiscountCodeException.class, () -> registry.redeem("PROMO10"));
+
+        registry.release("PROMO10");
+        assertTrue(registry.isValid("PROMO10"));
+        registry.redeem("PROMO10");
+    }
+
+    @Test
+    @DisplayName("Test de code sans plafond")
+    void testUnlimited() throws InvalidDiscountCodeException {
+        registry.register("PROMO20", 20);
+        for (int i = 0; i < 1000; i++) {
+            registry.redeem("PROMO20");
+        }
+        assertEquals(1000, registry.getUses("PROMO20"));
+        assertEquals(DiscountCodeRegistry.UNLIMITED, registry.getRemainingUses("PROMO20"));
+    }
+
+    @Test
+    @DisplayName("Test d'expiration des codes")
+    void testExpiry() throws InvalidDiscountCodeException {
+        registry.register("HIVER", 15, Money.zero(Money.EUR), DiscountCodeRegistry.UNLIMITED, NOW.plus(Duration.ofDays(1)));
+        registry.register("ETE", 15, Money.zero(Money.EUR), DiscountCodeRegistry.UNLIMITED, NOW);
+
+        registry.redeem("HIVER");
+        assertFalse(registry.isValid("ETE"));
+        assertThrows(InvalidDiscountCodeException.class, () -> registry.redeem("ETE"));
+        assertNull(registry.definition("ETE"));
+
+        assertEquals(1, registry.purgeExpired());
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    @DisplayName("Test de codes inconnus et invalides")
+    void testInvalid() {
+        assertThrows(InvalidDiscountCodeException.class, () -> registry.redeem("INCONNU"));
+        assertThrows(InvalidDiscountCodeException.class, () -> registry.redeem(null));
+        assertThrows(IllegalArgumentException.class, () -> registry.register("", 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> registry.register("X", 10, Money.zero(Money.EUR), -5, null));
+        assertFalse(registry.remove("INCONNU"));
+    }
+
+    @Test
+    @DisplayName("Test du refus de rendre une utilisation non consommée")
+    void testReleaseWithoutRedemption() throws InvalidDiscountCodeException {
+        registry.register("PROMO10", 10, Money.zero(Money.EUR), 2, null);
+        registry.register("PROMO20", 20);
+
+        assertFalse(registry.release("PROMO10"));
+        assertFalse(registry.release("PROMO20"));
+        assertFalse(registry.release("INCONNU"));
+        assertEquals(2, registry.getRemainingUses("PROMO10"));
+
+        registry.redeem("PROMO10");
+        assertTrue(registry.release("PROMO10"));
+        assertFalse(registry.release("PROMO10"));
+        assertEquals(0, registry.getUses("PROMO10"));
+
+        registry.redeem("PROMO10");
+        registry.redeem("PROMO10");
+        assertThrows(InvalidDiscountCodeException.class, () -> registry.redeem("PROMO10"));
+
+        registry.redeem("PROMO20");
+        assertTrue(registry.release("PROMO20"));
+        assertFalse(registry.release("PROMO20"));
+        assertEquals(0, registry.getUses("PROMO20"));
+    }
+
+    @Test
+    @DisplayName("Test du refus de réenregistrer un code existant")
+    void testDuplicateRegistration() throws InvalidDiscountCodeException {
+        registry.register("PROMO10", 10, Money.zero(Money.EUR), 1, null);
+        registry.redeem("PROMO10");
+
+        assertThrows(IllegalArgumentException.class,
+                () -> registry.register("promo10", 10, Money.zero(Money.EUR), 1, null));
+        assertThrows(IllegalArgumentException.class, () -> registry.register("PROMO10", 50));
+        assertEquals(1, registry.getUses("PROMO10"));
+        assertFalse(registry.isValid("PROMO10"));
+
+        assertTrue(registry.remove("PROMO10"));
+        registry.register("PROMO10", 10, Money.zero(Money.EUR), 1, null);
+        assertTrue(registry.isValid("PROMO10"));
+    }
+
+    @Test
+    @DisplayName("Test du plafond exact sous forte concurrence")
+    void testConcurrentRedemption() throws Exception {
+        registry.register("VIRAL", 5, Money.zero(Money.EUR), 1000, null);
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                int redeemed = 0;
+                for (int i = 0; i < 200; i++) {
+                    try {
+                        registry.redeem("VIRAL");
+                        redeemed++;
+                    } catch (InvalidDiscountCodeException e) {
+                        // plafond atteint
+                    }
+                }
+                return redeemed;
+            }));
+        }
+        start.countDown();
+        int total = 0;
+        for (Future<Integer> result : results) {
+            total += result.get();
+        }
+        executor.shutdown();
+
+        assertEquals(1000, total);
+        assertEquals(1000, registry.getUses("VIRAL"));
+        assertEquals(0, registry.getRemainingUses("VIRAL"));
+    }
+
+    @Test
+    @DisplayName("Test d'utilisation du registre par une commande")
+    void testOrderRedemption() throws OutOfStockException, InvalidDiscountCodeException {
+        ProductCatalog catalog = new ProductCatalog();
+        Product book = catalog.register("Book", 50.0, 10);
+        registry.register("UNIQUE", Money.of(10.0), Money.of(20.0), 1, null);
+        PricingEngine pricing = PricingEngine.builder(catalog).codeRegistry(registry).build();
+
+        ShoppingCart first = new ShoppingCart();
+        Order firstOrder = new Order(first, 0.0);
+        firstOrder.setPricingEngine(pricing);
+        first.addProduct(book);
+        firstOrder.applyDiscountCode("UNIQUE");
+        assertEquals(Money.of(40.0), firstOrder.getTotalAmount());
+
+        ShoppingCart second = new ShoppingCart();
+        Order secondOrder = new Order(second, 0.0);
+        secondOrder.setPricingEngine(pricing);
+        second.addProduct(book);
+        assertThrows(InvalidDiscountCodeException.class, () -> secondOrder.applyDiscountCode("UNIQUE"));
+
+        firstOrder.removeDiscountCode();
+        secondOrder.applyDiscountCode("UNIQUE");
+        assertEquals(1, registry.getUses("UNIQUE"));
+    }
+}
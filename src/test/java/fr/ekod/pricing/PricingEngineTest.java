@@ -0,0 +1,188 @@
+package fr.ekod.pricing;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import fr.ekod.Money;
+import fr.ekod.Product;
+import fr.ekod.ProductCatalog;
+import fr.ekod.ShoppingCart;
+import fr.ekod.exceptions.InvalidDiscountCodeException;
+import fr.ekod.exceptions.OutOfStockException;
+
+import java.util.Currency;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests de la classe PricingEngine")
+public class PricingEngineTest {
+
+    private ProductCatalog catalog;
+    private Product laptop;
+    private Product book;
+    private Product pen;
+    private ShoppingCart cart;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new ProductCatalog();
+        laptop = catalog.register("Laptop", 1000.0, 10);
+        book = catalog.register("Book", 25.0, 100);
+        pen = catalog.register("Pen", 2.0, 1000);
+        cart = new ShoppingCart();
+    }
+
+    @Test
+    @DisplayName("Test d'un panier sans règle")
+    void testNoRules() throws OutOfStockException {
+        cart.addProduct(book, 2);
+        PriceQuote quote = PricingEngine.builder(catalog).build().quote(cart, null);
+
+        assertEquals(Money.of(50.0), quote.getSubtotal());
+        assertTrue(quote.getSavings().isZero());
+        assertEquals(Money.of(50.0), quote.getNetSubtotal());
+    }
+
+    @Test
+    @DisplayName("Test d'une promotion produit")
+    void testProductDiscount() throws OutOfStockException {
+        PricingEngine engine = PricingEngine.builder(catalog)
+                .productDiscount(laptop.getSku(), 10)
+                .build();
+        cart.addProduct(laptop, 2);
+        cart.addProduct(book);
+
+        PriceQuote quote = engine.quote(cart, null);
+        assertEquals(Money.of(200.0), quote.getLineSavings());
+        assertEquals(Money.of(1825.0), quote.getNetSubtotal());
+    }
+
+    @Test
+    @DisplayName("Test des prix par palier de quantité")
+    void testQuantityTiers() throws OutOfStockException {
+        PricingEngine engine = PricingEngine.builder(catalog)
+                .productPrice(pen.getSku(), 10, Money.of(1.5))
+                .productPrice(pen.getSku(), 100, Money.of(1.0))
+                .productDiscount(pen.getSku(), 50, 30)
+                .build();
+
+        cart.addProduct(pen, 9);
+        assertTrue(engine.quote(cart, null).getSavings().isZero());
+
+        cart.addProduct(pen, 1);
+        assertEquals(Money.of(5.0), engine.quote(cart, null).getLineSavings());
+
+        // 30% à partir de 50 unités : 1.40 au lieu de 1.50
+        cart.addProduct(pen, 40);
+        assertEquals(Money.of(30.0), engine.quote(cart, null).getLineSavings());
+
+        cart.addProduct(pen, 50);
+        assertEquals(Money.of(100.0), engine.quote(cart, null).getLineSavings());
+    }
+
+    @Test
+    @DisplayName("Test qu'un prix palier supérieur au prix catalogue est ignoré")
+    void testTierAboveListPrice() throws OutOfStockException {
+        PricingEngine engine = PricingEngine.builder(catalog)
+                .productPrice(book.getSku(), 1, Money.of(30.0))
+                .build();
+        cart.addProduct(book);
+        assertTrue(engine.quote(cart, null).getSavings().isZero());
+    }
+
+    @Test
+    @DisplayName("Test des paliers de remise panier")
+    void testCartTiers() throws OutOfStockException {
+        PricingEngine engine = PricingEngine.builder(catalog)
+                .cartDiscount(Money.of(100.0), 5)
+                .cartDiscount(Money.of(1000.0), 10)
+                .build();
+
+        cart.addProduct(book, 3);
+        assertTrue(engine.quote(cart, null).getCartDiscount().isZero());
+
+        cart.addProduct(book);
+        assertEquals(Money.of(5.0), engine.quote(cart, null).getCartDiscount());
+
+        cart.addProduct(laptop);
+        assertEquals(Money.of(110.0), engine.quote(cart, null).getCartDiscount());
+    }
+
+    @Test
+    @DisplayName("Test des codes promo")
+    void testDiscountCodes() throws OutOfStockException, InvalidDiscountCodeException {
+        PricingEngine engine = PricingEngine.builder(catalog)
+                .discountCode("PROMO10", 10)
+                .discountCode("BIENVENUE", Money.of(15.0), Money.of(50.0))
+                .cartDiscount(Money.of(100.0), 15)
+                .build();
+        cart.addProduct(book, 2);
+
+        engine.checkCode(cart, "promo10");
+        PriceQuote quote = engine.quote(cart, "PROMO10");
+        assertTrue(quote.isCodeApplied());
+        assertEquals(Money.of(5.0), quote.getCartDiscount());
+
+        assertEquals(Money.of(15.0), engine.quote(cart, "BIENVENUE").getCartDiscount());
+
+        // Remise panier plus avantageuse que le code : pas de cumul
+        cart.addProduct(book, 2);
+        quote = engine.quote(cart, "PROMO10");
+        assertFalse(quote.isCodeApplied());
+        assertEquals(Money.of(15.0), quote.getCartDiscount());
+    }
+
+    @Test
+    @DisplayName("Test des codes promo invalides")
+    void testInvalidCodes() throws OutOfStockException {
+        PricingEngine engine = PricingEngine.builder(catalog)
+                .discountCode("BIENVENUE", Money.of(15.0), Money.of(50.0))
+                .build();
+        cart.addProduct(book);
+
+        assertFalse(engine.isKnownCode("INCONNU"));
+        assertThrows(InvalidDiscountCodeException.class, () -> engine.checkCode(cart, "INCONNU"));
+        assertThrows(InvalidDiscountCodeException.class, () -> engine.checkCode(cart, null));
+        assertThrows(InvalidDiscountCodeException.class, () -> engine.checkCode(cart, "BIENVENUE"));
+        assertFalse(engine.quote(cart, "BIENVENUE").isCodeApplied());
+    }
+
+    @Test
+    @DisplayName("Test de validation des règles")
+    void testRuleValidation() {
+        PricingEngine.Builder builder = PricingEngine.builder(catalog);
+        assertThrows(IllegalArgumentException.class, () -> builder.productDiscount(99, 10));
+        assertThrows(IllegalArgumentException.class, () -> builder.productDiscount(0, 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> builder.productDiscount(0, 150));
+        assertThrows(IllegalArgumentException.class, () -> builder.discountCode(" ", 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> builder.cartDiscount(Money.of(10.0, Currency.getInstance("USD")), 5));
+    }
+
+    @Test
+    @DisplayName("Test de produits ajoutés au catalogue après compilation")
+    void testProductsRegisteredAfterBuild() throws OutOfStockException {
+        PricingEngine engine = PricingEngine.builder(catalog).productDiscount(book.getSku(), 20).build();
+        Product late = catalog.register("Nouveau", 10.0, 5);
+        cart.addProduct(late);
+        cart.addProduct(new Product("Hors catalogue", 3.0, 5));
+        cart.addProduct(book);
+
+        assertEquals(Money.of(5.0), engine.quote(cart, null).getLineSavings());
+    }
+
+    @Test
+    @DisplayName("Test d'un produit d'un autre catalogue portant le même SKU")
+    void testProductFromAnotherCatalog() throws OutOfStockException {
+        PricingEngine engine = PricingEngine.builder(catalog).productPrice(laptop.getSku(), 1, Money.of(900.0)).build();
+        ProductCatalog other = new ProductCatalog();
+        Product cable = other.register("Câble", 5.0, 10);
+        assertEquals(laptop.getSku(), cable.getSku());
+
+        // Sans vérification d'appartenance, le câble recevrait 100 € de remise sur 5 €
+        cart.addProduct(cable);
+        assertTrue(engine.quote(cart, null).getLineSavings().isZero());
+        cart.addProduct(laptop);
+        assertEquals(Money.of(100.0), engine.quote(cart, null).getLineSavings());
+    }
+}
@@ -0,0 +1,144 @@
+package fr.ekod.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import fr.ekod.Money;
+import fr.ekod.Order;
+import fr.ekod.Product;
+import fr.ekod.ProductCatalog;
+import fr.ekod.ShoppingCart;
+import fr.ekod.exceptions.OutOfStockException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests de la classe OrderRepository")
+public class OrderRepositoryTest {
+
+    private static final Instant JANUARY = Instant.parse("2026-01-10T12:00:00Z");
+    private static final Instant FEBRUARY = Instant.parse("2026-02-10T12:00:00Z");
+
+    private OrderRepository repository;
+    private ProductCatalog catalog;
+    private Product laptop;
+    private Product book;
+
+    @BeforeEach
+    void setUp() {
+        repository = new OrderRepository(Money.EUR, 6);
+        catalog = new ProductCatalog();
+        laptop = catalog.register("Laptop", 1000.0, 1_000_000);
+        book = catalog.register("Book", 25.0, 1_000_000);
+    }
+
+    private Order newOrder(long id, Instant createdAt, Product product, int quantity) throws OutOfStockException {
+        ShoppingCart cart = new ShoppingCart();
+        Order order = new Order(id, cart, Money.of(5.0), createdAt);
+        cart.addProduct(product, quantity);
+        return order;
+    }
+
+    @Test
+    @DisplayName("Test d'ajout, recherche et suppression")
+    void testSaveFindRemove() throws OutOfStockException {
+        assertEquals(8, repository.getShardCount());
+        Order order = newOrder(1, JANUARY, book, 2);
+        repository.save(order);
+
+        assertSame(order, repository.findById(1));
+        assertNull(repository.findById(2));
+        assertEquals(1, repository.size());
+        assertTrue(repository.remove(1));
+        assertFalse(repository.remove(1));
+        assertEquals(0, repository.size());
+    }
+
+    @Test
+    @DisplayName("Test de modification sous le verrou de la partition")
+    void testUpdate() throws OutOfStockException {
+        repository.save(newOrder(1, JANUARY, book, 4));
+
+        double total = repository.update(1, order -> {
+            order.setDiscount(10.0);
+            return order.getTotalPrice();
+        });
+        assertEquals(95.0, total, 0.001);
+        assertThrows(IllegalArgumentException.class, () -> repository.update(99, Order::getTotalPrice));
+    }
+
+    @Test
+    @DisplayName("Test du chiffre d'affaires par période")
+    void testRevenueBetween() throws OutOfStockException {
+        for (long id = 1; id <= 100; id++) {
+            repository.save(newOrder(id, id % 2 == 0 ? JANUARY : FEBRUARY, book, 1));
+        }
+        Instant february = Instant.parse("2026-02-01T00:00:00Z");
+
+        assertEquals(Money.of(1500.0), repository.revenueBetween(Instant.EPOCH, february));
+        assertEquals(Money.of(1500.0), repository.revenueBetween(february, Instant.parse("2026-03-01T00:00:00Z")));
+        assertEquals(Money.of(0.0), repository.revenueBetween(february, february));
+    }
+
+    @Test
+    @DisplayName("Test de recherche des commandes contenant un SKU")
+    void testFindBySku() throws OutOfStockException {
+        for (long id = 1; id <= 50; id++) {
+            repository.save(newOrder(id, JANUARY, id % 5 == 0 ? laptop : book, 1));
+        }
+        List<Order> withLaptop = repository.findBySku(laptop.getSku());
+        assertEquals(10, withLaptop.size());
+        for (Order order : withLaptop) {
+            assertEquals(0, order.getId() % 5);
+        }
+        assertTrue(repository.findBySku(42).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test de refus d'une autre devise")
+    void testCurrency() {
+        ShoppingCart cart = new ShoppingCart(Currency.getInstance("USD"));
+        Order order = new Order(cart, Money.zero(Currency.getInstance("USD")));
+        assertThrows(IllegalArgumentException.class, () -> repository.save(order));
+        assertThrows(IllegalArgumentException.class, () -> new OrderRepository(Money.EUR, 0));
+    }
+
+    @Test
+    @DisplayName("Test d'écritures et de parcours concurrents")
+    void testConcurrentAccess() throws Exception {
+        int threads = 8;
+        int perThread = 2_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long base = (long) t * perThread;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (long i = 1; i <= perThread; i++) {
+                    repository.save(newOrder(base + i, JANUARY, book, 1));
+                    if (i % 500 == 0) {
+                        repository.revenueBetween(Instant.EPOCH, FEBRUARY);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(threads * perThread, repository.size());
+        assertEquals(Money.ofMinor(threads * perThread * 3000L), repository.revenueBetween(Instant.EPOCH, FEBRUARY));
+    }
+}
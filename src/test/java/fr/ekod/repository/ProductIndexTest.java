@@ -0,0 +1,253 @@
+package fr.ekod.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import fr.ekod.Money;
+import fr.ekod.Order;
+import fr.ekod.Product;
+import fr.ekod.ProductCatalog;
+import fr.ekod.ShoppingCart;
+import fr.ekod.exceptions.OutOfStockException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests de la classe ProductIndex")
+public class ProductIndexTest {
+
+    private ProductIndex index;
+    private ProductCatalog catalog;
+    private Product laptop;
+    private Product book;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductIndex();
+        catalog = new ProductCatalog();
+        laptop = catalog.register("Laptop", 1000.0, 1000);
+        book = catalog.register("Book", 25.0, 100_000);
+    }
+
+    private ShoppingCart indexedCart() {
+        ShoppingCart cart = new ShoppingCart();
+        index.attach(cart);
+        return cart;
+    }
+
+    @Test
+    @DisplayName("Test de mise à jour incrémentale de l'index")
+    void testIncrementalMaintenance() throws OutOfStockException {
+        ShoppingCart first = indexedCart();
+        ShoppingCart second = indexedCart();
+
+        first.addProduct(book);
+        first.addProduct(book, 2);
+        second.addProduct(laptop);
+        assertEquals(1, index.countCarts(book.getSku()));
+        assertArrayEquals(new long[] {first.getId()}, index.cartIds(book.getSku()));
+
+        second.addProduct(book);
+        assertEquals(List.of(first, second), index.findCarts(book.getSku()));
+
+        // Une ligne partiellement retirée reste indexée
+        first.removeProduct(book, 2);
+        assertEquals(2, index.countCarts(book.getSku()));
+        first.removeProduct(book);
+        assertEquals(List.of(second), index.findCarts(book.getSku()));
+
+        second.clear();
+        assertEquals(0, index.countCarts(book.getSku()));
+        assertEquals(0, index.countCarts(laptop.getSku()));
+        assertEquals(0, index.countCarts(999));
+    }
+
+    @Test
+    @DisplayName("Test d'ajout groupé, d'attachement tardif et de détachement")
+    void testAttachDetach() throws OutOfStockException {
+        ShoppingCart cart = new ShoppingCart();
+        Map<Product, Integer> items = new LinkedHashMap<>();
+        items.put(laptop, 1);
+        items.put(book, 3);
+        cart.addAll(items);
+        cart.addProduct(new Product("Hors catalogue", 1.0, 5));
+
+        index.attach(cart);
+        assertEquals(1, index.countCarts(laptop.getSku()));
+        assertEquals(1, index.getCartCount());
+
+        ShoppingCart other = indexedCart();
+        other.addAll(items);
+        assertEquals(2, index.countCarts(book.getSku()));
+
+        index.detach(cart);
+        assertEquals(List.of(other), index.findCarts(book.getSku()));
+        cart.removeProduct(book, 3);
+        assertEquals(1, index.countCarts(book.getSku()));
+    }
+
+    @Test
+    @DisplayName("Test de recherche des commandes concernées")
+    void testFindOrders() throws OutOfStockException {
+        ShoppingCart withOrder = indexedCart();
+        Order order = new Order(withOrder, Money.of(5.0));
+        withOrder.addProduct(laptop);
+        indexedCart().addProduct(laptop);
+
+        assertEquals(List.of(order), index.findOrders(laptop.getSku()));
+        assertEquals(2, index.findCarts(laptop.getSku()).size());
+    }
+
+    @Test
+    @DisplayName("Test de nombreux paniers et de SKU tardifs")
+    void testManyCartsAndSkus() throws OutOfStockException {
+        for (int i = 0; i < 2000; i++) {
+            catalog.register("Produit " + i, 1.0, 10);
+        }
+        List<ShoppingCart> carts = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            ShoppingCart cart = indexedCart();
+            cart.addProduct(catalog.get(2 + i));
+            cart.addProduct(book);
+            carts.add(cart);
+        }
+        assertEquals(2000, index.countCarts(book.getSku()));
+        assertEquals(1, index.countCarts(2 + 1999));
+        for (int i = 0; i < 2000; i += 2) {
+            carts.get(i).removeProduct(book);
+        }
+        assertEquals(1000, index.countCarts(book.getSku()));
+        for (long id : index.cartIds(book.getSku())) {
+            assertEquals(1, (id - carts.get(0).getId()) % 2);
+        }
+    }
+
+    @Test
+    @DisplayName("Test de maintenance concurrente")
+    void testConcurrentMaintenance() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ShoppingCart>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int remaining = t % 2;
+            futures.add(executor.submit(() -> {
+                ShoppingCart cart = indexedCart();
+                start.await();
+                for (int i = 0; i < 1000; i++) {
+                    cart.addProduct(book);
+                    cart.removeProduct(book);
+                }
+                if (remaining == 1) {
+                    cart.addProduct(book);
+                }
+                return cart;
+            }));
+        }
+        start.countDown();
+        Set<Long> expected = new HashSet<>();
+        for (Future<ShoppingCart> future : futures) {
+            ShoppingCart cart = future.get();
+            if (cart.getNumberOfItems() > 0) {
+                expected.add(cart.getId());
+            }
+        }
+        executor.shutdown();
+        Set<Long> actual = new HashSet<>();
+        for (long id : index.cartIds(book.getSku())) {
+            actual.add(id);
+        }
+        assertEquals(expected, actual);
+        assertEquals(threads / 2, actual.size());
+    }
+
+    @Test
+    @DisplayName("Test de l'ensemble de long primitifs")
+    void testLongHashSet() {
+        LongHashSet set = new LongHashSet();
+        Set<Long> reference = new HashSet<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(5000) - 2500L;
+            if (i % 1000 == 0) {
+                key = Long.MIN_VALUE;
+            }
+            if (random.nextBoolean()) {
+                assertEquals(reference.add(key), set.add(key));
+            } else {
+                assertEquals(reference.remove(key), set.remove(key));
+            }
+            assertEquals(reference.size(), set.size());
+        }
+        for (long key = -2500; key < 2500; key++) {
+            assertEquals(reference.contains(key), set.contains(key));
+        }
+        assertEquals(reference.size(), set.toArray().length);
+    }
+
+    @Test
+    @DisplayName("Test de la table long -> objet")
+    void testLongObjectMap() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        Map<Long, String> reference = new HashMap<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(5000) - 2500L;
+            if (i % 1000 == 0) {
+                key = Long.MIN_VALUE;
+            }
+            if (random.nextBoolean()) {
+                String value = "v" + i;
+                assertEquals(reference.put(key, value), map.put(key, value));
+            } else {
+                assertEquals(reference.remove(key), map.remove(key));
+            }
+            assertEquals(reference.size(), map.size());
+        }
+        for (long key = -2500; key < 2500; key++) {
+            assertEquals(reference.get(key), map.get(key));
+        }
+        assertEquals(reference.get(Long.MIN_VALUE), map.get(Long.MIN_VALUE));
+    }
+
+    @Test
+    @DisplayName("Test des requêtes sur un produit hors catalogue")
+    void testNoSkuQueries() throws OutOfStockException {
+        ShoppingCart cart = indexedCart();
+        cart.addProduct(new Product("Hors catalogue", 1.0, 5));
+
+        assertEquals(0, index.countCarts(Product.NO_SKU));
+        assertArrayEquals(new long[0], index.cartIds(Product.NO_SKU));
+        assertTrue(index.findCarts(Product.NO_SKU).isEmpty());
+        assertTrue(index.findOrders(Product.NO_SKU).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test d'un panier abandonné sans détachement")
+    void testAbandonedCartIsNotRetained() throws OutOfStockException {
+        ShoppingCart kept = indexedCart();
+        kept.addProduct(book);
+        ShoppingCart abandoned = indexedCart();
+        abandoned.addProduct(book, 2);
+        assertEquals(2, index.countCarts(book.getSku()));
+
+        // Récupération par le GC simulée : System.gc() n'est pas garanti
+        index.simulateCollected(abandoned.getId());
+
+        assertEquals(1, index.getCartCount());
+        assertEquals(List.of(kept), index.findCarts(book.getSku()));
+        assertEquals(1, index.countCarts(book.getSku()));
+    }
+}